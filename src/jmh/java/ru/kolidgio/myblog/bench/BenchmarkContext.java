@@ -0,0 +1,63 @@
+package ru.kolidgio.myblog.bench;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.kolidgio.myblog.MyblogApplication;
+import ru.kolidgio.myblog.bulk.BulkEntity;
+import ru.kolidgio.myblog.bulk.BulkImportCompleted;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.UUID;
+
+public final class BenchmarkContext implements AutoCloseable {
+    private final ConfigurableApplicationContext context;
+    private final Dataset dataset;
+
+    private BenchmarkContext(ConfigurableApplicationContext context, Dataset dataset) {
+        this.context = context;
+        this.dataset = dataset;
+    }
+
+    public static BenchmarkContext start(int rows) {
+        String db = "bench-" + UUID.randomUUID();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(MyblogApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:" + db
+                                + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false",
+                        "spring.h2.console.enabled=false",
+                        "myblog.search.index-dir=" + tempDir(),
+                        "logging.level.root=WARN")
+                .run();
+        Dataset dataset = new DatasetSeeder(context.getBean(JdbcTemplate.class)).seed(rows);
+        context.publishEvent(new BulkImportCompleted(BulkEntity.USERS, dataset.users()));
+        context.publishEvent(new BulkImportCompleted(BulkEntity.POSTS, dataset.posts()));
+        context.publishEvent(new BulkImportCompleted(BulkEntity.LIKES, rows));
+        return new BenchmarkContext(context, dataset);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public Dataset dataset() {
+        return dataset;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private static String tempDir() {
+        try {
+            return Files.createTempDirectory("myblog-bench-index").toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.kolidgio.myblog.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.kolidgio.myblog.service.CommentService;
+import ru.kolidgio.myblog.service.paging.FeedCursor;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class CommentFeedBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param("10000")
+    public int rows;
+
+    @Param({"1", "4"})
+    public int page;
+
+    private BenchmarkContext context;
+    private CommentService commentService;
+    private long postId;
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(rows);
+        commentService = context.bean(CommentService.class);
+        postId = context.dataset().postId(0);
+        cursor = context.bean(JdbcTemplate.class).queryForObject(
+                "select created_at, id from comments where post_id = ? order by created_at, id offset ? limit 1",
+                (rs, rowNum) -> new FeedCursor(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2)).encode(),
+                postId, (long) page * PAGE_SIZE - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object offsetFeed() {
+        return commentService.feed(postId, PageRequest.of(page, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Object cursorFeed() {
+        return commentService.feed(postId, cursor, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,12 @@
+package ru.kolidgio.myblog.bench;
+
+public record Dataset(long firstUserId, int users, long firstPostId, int posts, int discussions) {
+
+    public long userId(int index) {
+        return firstUserId + index;
+    }
+
+    public long postId(int index) {
+        return firstPostId + index;
+    }
+}
@@ -0,0 +1,74 @@
+package ru.kolidgio.myblog.bench;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import ru.kolidgio.myblog.model.Comment;
+import ru.kolidgio.myblog.service.support.SequenceBlockAllocator;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+@RequiredArgsConstructor
+public class DatasetSeeder {
+    private static final int BATCH_SIZE = 5_000;
+    private static final int DISCUSSIONS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Dataset seed(int rows) {
+        int users = Math.max(100, rows / 100);
+        int posts = rows;
+        int discussions = Math.min(DISCUSSIONS, posts);
+        long firstUserId = nextId("users");
+        long firstPostId = nextId("posts");
+        long firstCommentId = nextId("comments");
+        long firstLikeId = nextId("likes");
+        String hash = new BCryptPasswordEncoder(4).encode("password");
+        LocalDateTime start = LocalDateTime.now().minusMinutes(rows);
+
+        insert("insert into users(id, username, email, password) values (?, ?, ?, ?)", users, i -> new Object[]{
+                firstUserId + i, "bench_user_" + i, "bench_user_" + i + "@example.com", hash});
+        insert("insert into posts(id, user_id, title, content, excerpt, created_at, updated_at) values (?, ?, ?, ?, ?, ?, ?)", posts, i -> {
+            Timestamp at = Timestamp.valueOf(start.plusMinutes(i));
+            return new Object[]{firstPostId + i, firstUserId + i % users, "Пост " + i,
+                    "Первый абзац поста " + i + ".\n\nВторой абзац.", "Первый абзац поста " + i + ". Второй абзац.", at, at};
+        });
+        insert("insert into comments(id, user_id, post_id, path, content, created_at, updated_at) values (?, ?, ?, ?, ?, ?, ?)", rows, i -> {
+            Timestamp at = Timestamp.valueOf(start.plusSeconds(i));
+            return new Object[]{firstCommentId + i, firstUserId + i % users, firstPostId + i % discussions,
+                    Comment.pathSegment(firstCommentId + i), "Комментарий " + i, at, at};
+        });
+        int likes = (int) Math.min(rows, (long) posts * users);
+        insert("insert into likes(id, user_id, post_id) values (?, ?, ?)", likes, i -> new Object[]{
+                firstLikeId + i, firstUserId + (i / posts) % users, firstPostId + i % posts});
+        jdbcTemplate.update("update posts p set likes_count = (select count(*) from likes l where l.post_id = p.id)");
+
+        for (String table : List.of("users", "posts", "comments", "likes")) {
+            new SequenceBlockAllocator(jdbcTemplate, table + "_seq").reserveAbove(nextId(table));
+        }
+        return new Dataset(firstUserId, users, firstPostId, posts, discussions);
+    }
+
+    private long nextId(String table) {
+        Long max = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+        return max + 1;
+    }
+
+    private void insert(String sql, int count, IntFunction<Object[]> row) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            batch.add(row.apply(i));
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+}
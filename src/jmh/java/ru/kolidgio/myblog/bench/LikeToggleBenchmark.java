@@ -0,0 +1,70 @@
+package ru.kolidgio.myblog.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.kolidgio.myblog.service.LikeService;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class LikeToggleBenchmark {
+
+    @Param("10000")
+    public int rows;
+
+    @Param({"1", "1000"})
+    public int hotPosts;
+
+    private BenchmarkContext context;
+    private LikeService likeService;
+    private Dataset dataset;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(rows);
+        likeService = context.bean(LikeService.class);
+        dataset = context.dataset();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Long toggleUncontended() {
+        return toggle();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Long toggleContended() {
+        return toggle();
+    }
+
+    private Long toggle() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long postId = dataset.postId(random.nextInt(Math.min(hotPosts, dataset.posts())));
+        long userId = dataset.userId(random.nextInt(dataset.users()));
+        return likeService.toggle(postId, userId);
+    }
+}
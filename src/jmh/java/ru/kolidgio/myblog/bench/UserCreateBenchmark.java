@@ -0,0 +1,78 @@
+package ru.kolidgio.myblog.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.kolidgio.myblog.dto.user.CreateUserDto;
+import ru.kolidgio.myblog.model.User;
+import ru.kolidgio.myblog.repository.UserRepository;
+import ru.kolidgio.myblog.service.UserService;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class UserCreateBenchmark {
+    private static final String PASSWORD = "benchmark-password";
+
+    @Param("10000")
+    public int rows;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private BenchmarkContext context;
+    private UserService userService;
+    private UserRepository userRepository;
+    private PasswordEncoder passwordEncoder;
+    private String precomputedHash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(rows);
+        userService = context.bean(UserService.class);
+        userRepository = context.bean(UserRepository.class);
+        passwordEncoder = context.bean(PasswordEncoder.class);
+        precomputedHash = passwordEncoder.encode(PASSWORD);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public User create() {
+        long n = sequence.incrementAndGet();
+        return userService.create(new CreateUserDto("create_" + n, "create_" + n + "@example.com", PASSWORD));
+    }
+
+    @Benchmark
+    public User createWithoutHashing() {
+        long n = sequence.incrementAndGet();
+        User user = new User();
+        user.setUsername("raw_" + n);
+        user.setEmail("raw_" + n + "@example.com");
+        user.setPassword(precomputedHash);
+        return userRepository.save(user);
+    }
+
+    @Benchmark
+    public String hashOnly() {
+        return passwordEncoder.encode(PASSWORD);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.kolidgio.myblog.bulk;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "myblog.bulk.command")
+@RequiredArgsConstructor
+public class BulkCommandRunner implements ApplicationRunner {
+    private final BulkProperties properties;
+    private final BulkImportService importService;
+    private final BulkExportService exportService;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        switch (properties.command()) {
+            case "import" -> {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(properties.file()))) {
+                    ImportResult result = importService.importData(properties.entity(), properties.format(), in);
+                    log.info("Импортировано {} записей {} пакетами: {}", result.rows(), result.chunks(), result.entity());
+                }
+            }
+            case "export" -> {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(properties.file()))) {
+                    long rows = exportService.export(properties.entity(), properties.format(), out);
+                    log.info("Экспортировано {} записей: {}", rows, properties.entity());
+                }
+            }
+            default -> throw new IllegalArgumentException("Неизвестная команда myblog.bulk.command: " + properties.command());
+        }
+    }
+}
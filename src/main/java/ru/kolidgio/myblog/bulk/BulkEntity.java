@@ -0,0 +1,73 @@
+package ru.kolidgio.myblog.bulk;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public enum BulkEntity {
+    USERS("users", "users_seq", List.of(
+            Column.id(),
+            Column.required("username", ColumnType.TEXT),
+            Column.required("email", ColumnType.TEXT),
+            Column.required("password", ColumnType.TEXT))),
+    POSTS("posts", "posts_seq", List.of(
+            Column.id(),
+            Column.optional("user_id", ColumnType.LONG),
+            Column.required("title", ColumnType.TEXT),
+            Column.optional("image_path", ColumnType.TEXT),
+            Column.required("content", ColumnType.TEXT),
+            Column.optional("created_at", ColumnType.TIMESTAMP),
+            Column.optional("updated_at", ColumnType.TIMESTAMP))),
+    COMMENTS("comments", "comments_seq", List.of(
+            Column.id(),
+            Column.required("user_id", ColumnType.LONG),
+            Column.required("post_id", ColumnType.LONG),
+            Column.required("content", ColumnType.TEXT),
+            Column.optional("created_at", ColumnType.TIMESTAMP),
+            Column.optional("updated_at", ColumnType.TIMESTAMP))),
+    LIKES("likes", "likes_seq", List.of(
+            Column.id(),
+            Column.required("user_id", ColumnType.LONG),
+            Column.required("post_id", ColumnType.LONG)));
+
+    private final String table;
+    private final String sequence;
+    private final List<Column> columns;
+
+    BulkEntity(String table, String sequence, List<Column> columns) {
+        this.table = table;
+        this.sequence = sequence;
+        this.columns = columns;
+    }
+
+    public String table() {
+        return table;
+    }
+
+    public String sequence() {
+        return sequence;
+    }
+
+    public List<Column> columns() {
+        return columns;
+    }
+
+    public List<String> columnNames() {
+        return columns.stream().map(Column::name).toList();
+    }
+
+    String insertSql() {
+        String names = String.join(", ", columnNames());
+        String params = String.join(", ", Collections.nCopies(columns.size(), "?"));
+        return "insert into " + table + " (" + names + ") values (" + params + ")";
+    }
+
+    String selectPageSql() {
+        return columns.stream().map(Column::name)
+                .collect(Collectors.joining(", ", "select ", " from " + table + " where id > ? order by id limit ?"));
+    }
+
+    boolean hasColumn(String name) {
+        return columns.stream().anyMatch(c -> c.name().equals(name));
+    }
+}
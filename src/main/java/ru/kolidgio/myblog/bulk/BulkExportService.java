@@ -0,0 +1,60 @@
+package ru.kolidgio.myblog.bulk;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class BulkExportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BulkProperties properties;
+
+    // страницы по id короткими запросами: соединение не держится, пока пишется вывод
+    public long export(BulkEntity entity, BulkFormat format, OutputStream out) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        RecordWriter records = format.writer(writer, entity.columns());
+        List<Column> columns = entity.columns();
+        String sql = entity.selectPageSql();
+        long rows = 0;
+        long lastId = 0;
+        while (true) {
+            List<Object[]> page = jdbcTemplate.query(sql, (rs, i) -> read(rs, columns), lastId, properties.fetchSize());
+            for (Object[] values : page) {
+                records.write(values);
+            }
+            rows += page.size();
+            if (page.size() < properties.fetchSize()) break;
+            lastId = (Long) page.get(page.size() - 1)[0];
+        }
+        records.flush();
+        return rows;
+    }
+
+    private static Object[] read(ResultSet rs, List<Column> columns) throws SQLException {
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            int index = i + 1;
+            values[i] = switch (columns.get(i).type()) {
+                case LONG -> {
+                    long value = rs.getLong(index);
+                    yield rs.wasNull() ? null : value;
+                }
+                case TEXT -> rs.getString(index);
+                case TIMESTAMP -> rs.getTimestamp(index);
+            };
+        }
+        return values;
+    }
+}
@@ -0,0 +1,34 @@
+package ru.kolidgio.myblog.bulk;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.util.List;
+
+public enum BulkFormat {
+    NDJSON {
+        @Override
+        RecordReader reader(Reader in) {
+            return new NdjsonRecordReader(in);
+        }
+
+        @Override
+        RecordWriter writer(Writer out, List<Column> columns) {
+            return new NdjsonRecordWriter(out, columns);
+        }
+    },
+    CSV {
+        @Override
+        RecordReader reader(Reader in) {
+            return new CsvRecordReader(in);
+        }
+
+        @Override
+        RecordWriter writer(Writer out, List<Column> columns) {
+            return new CsvRecordWriter(out, columns);
+        }
+    };
+
+    abstract RecordReader reader(Reader in);
+
+    abstract RecordWriter writer(Writer out, List<Column> columns);
+}
@@ -0,0 +1,4 @@
+package ru.kolidgio.myblog.bulk;
+
+public record BulkImportCompleted(BulkEntity entity, long rows) {
+}
@@ -0,0 +1,138 @@
+package ru.kolidgio.myblog.bulk;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kolidgio.myblog.model.Comment;
+import ru.kolidgio.myblog.service.errors.BadRequestException;
+import ru.kolidgio.myblog.service.errors.ConflictException;
+import ru.kolidgio.myblog.service.support.SequenceBlockAllocator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class BulkImportService {
+    private static final int UPDATE_RANGE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BulkProperties properties;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher events;
+
+    public ImportResult importData(BulkEntity entity, BulkFormat format, InputStream in) throws IOException {
+        RecordReader reader = format.reader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        SequenceBlockAllocator ids = new SequenceBlockAllocator(jdbcTemplate, entity.sequence());
+        String sql = entity.insertSql();
+        List<Object[]> chunk = new ArrayList<>(properties.chunkSize());
+        long rows = 0;
+        long chunks = 0;
+        long maxId = 0;
+        for (Map<String, String> record = next(reader); record != null; record = next(reader)) {
+            Object[] params = toParams(entity, record, ids, rows + chunk.size() + 1);
+            maxId = Math.max(maxId, (Long) params[0]);
+            chunk.add(params);
+            if (chunk.size() == properties.chunkSize()) {
+                writeChunk(sql, chunk, rows);
+                rows += chunk.size();
+                chunks++;
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(sql, chunk, rows);
+            rows += chunk.size();
+            chunks++;
+        }
+        ids.reserveAbove(maxId);
+        if (entity == BulkEntity.COMMENTS) {
+            updateByIdRange("comments", """
+                    update comments set path = lpad(cast(id as varchar), %d, '0')
+                    where path is null and id between ? and ?
+                    """.formatted(Comment.PATH_SEGMENT));
+        }
+        if (entity == BulkEntity.LIKES) {
+            updateByIdRange("posts", """
+                    update posts p set likes_count = (select count(*) from likes l where l.post_id = p.id)
+                    where p.id between ? and ?
+                    """);
+        }
+        clearCaches();
+        events.publishEvent(new BulkImportCompleted(entity, rows));
+        return new ImportResult(entity, rows, chunks);
+    }
+
+    // ошибки разбора NDJSON/CSV - это ошибки входных данных, а не сервера
+    private static Map<String, String> next(RecordReader reader) throws IOException {
+        try {
+            return reader.next();
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    private void writeChunk(String sql, List<Object[]> chunk, long offset) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, chunk));
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Не удалось импортировать записи " + (offset + 1) + "-"
+                    + (offset + chunk.size()) + " из-за ограничения БД", e);
+        }
+    }
+
+    private void updateByIdRange(String table, String sql) {
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+        for (long from = 1; from <= maxId; from += UPDATE_RANGE) {
+            long lower = from;
+            long upper = from + UPDATE_RANGE - 1;
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(sql, lower, upper));
+        }
+    }
+
+    private void clearCaches() {
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) cache.clear();
+        }
+    }
+
+    private static Object[] toParams(BulkEntity entity, Map<String, String> record,
+                                     SequenceBlockAllocator ids, long recordNumber) {
+        List<Column> columns = entity.columns();
+        Object[] params = new Object[columns.size()];
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            String raw = record.get(column.name());
+            if (raw == null || (raw.isBlank() && column.type() != ColumnType.TEXT)) {
+                if (column.name().equals("id")) {
+                    params[i] = ids.next();
+                } else if (column.type() == ColumnType.TIMESTAMP) {
+                    params[i] = now;
+                } else if (column.required()) {
+                    throw new BadRequestException("Запись " + recordNumber + ": поле " + column.name() + " обязательно");
+                }
+                continue;
+            }
+            try {
+                params[i] = column.type().parse(raw);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Запись " + recordNumber + ": некорректное значение поля " + column.name());
+            }
+        }
+        return params;
+    }
+}
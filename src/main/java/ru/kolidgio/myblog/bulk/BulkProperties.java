@@ -0,0 +1,16 @@
+package ru.kolidgio.myblog.bulk;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@ConfigurationProperties(prefix = "myblog.bulk")
+public record BulkProperties(
+        int chunkSize,
+        int fetchSize,
+        String command,
+        BulkEntity entity,
+        BulkFormat format,
+        Path file
+) {
+}
@@ -0,0 +1,16 @@
+package ru.kolidgio.myblog.bulk;
+
+public record Column(String name, ColumnType type, boolean required) {
+
+    static Column id() {
+        return new Column("id", ColumnType.LONG, false);
+    }
+
+    static Column required(String name, ColumnType type) {
+        return new Column(name, type, true);
+    }
+
+    static Column optional(String name, ColumnType type) {
+        return new Column(name, type, false);
+    }
+}
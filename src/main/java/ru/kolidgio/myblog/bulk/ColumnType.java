@@ -0,0 +1,46 @@
+package ru.kolidgio.myblog.bulk;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+public enum ColumnType {
+    LONG {
+        @Override
+        Object parse(String raw) {
+            return Long.parseLong(raw.trim());
+        }
+    },
+    TEXT {
+        @Override
+        Object parse(String raw) {
+            return raw;
+        }
+    },
+    TIMESTAMP {
+        @Override
+        Object parse(String raw) {
+            try {
+                return Timestamp.valueOf(LocalDateTime.parse(raw.trim()));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Некорректная дата: " + raw, e);
+            }
+        }
+
+        @Override
+        String format(Object value) {
+            if (value instanceof Timestamp ts) return ts.toLocalDateTime().toString();
+            return super.format(value);
+        }
+    };
+
+    abstract Object parse(String raw);
+
+    String format(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    boolean isNumeric() {
+        return this == LONG;
+    }
+}
@@ -0,0 +1,85 @@
+package ru.kolidgio.myblog.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class CsvRecordReader implements RecordReader {
+    private final BufferedReader in;
+    private List<String> header;
+    private long recordNumber;
+
+    CsvRecordReader(Reader in) {
+        this.in = new BufferedReader(in);
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        if (header == null) {
+            header = readRecord();
+            if (header == null) return null;
+        }
+        List<String> fields;
+        do {
+            fields = readRecord();
+            if (fields == null) return null;
+        } while (fields.size() == 1 && fields.get(0) == null);
+        recordNumber++;
+        if (fields.size() != header.size()) {
+            throw new IllegalArgumentException("CSV запись " + recordNumber + " содержит " + fields.size()
+                    + " полей, ожидалось " + header.size());
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            values.put(header.get(i), fields.get(i));
+        }
+        return values;
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = in.read();
+        if (c == -1) return null;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) throw new IllegalArgumentException("Незакрытая кавычка в CSV");
+                if (c == '"') {
+                    in.mark(1);
+                    int next = in.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        in.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',' || c == '\n' || c == '\r' || c == -1) {
+                fields.add(wasQuoted || !field.isEmpty() ? field.toString() : null);
+                field.setLength(0);
+                wasQuoted = false;
+                if (c != ',') {
+                    if (c == '\r') {
+                        in.mark(1);
+                        if (in.read() != '\n') in.reset();
+                    }
+                    return fields;
+                }
+            } else {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+}
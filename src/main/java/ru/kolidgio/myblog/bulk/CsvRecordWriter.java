@@ -0,0 +1,49 @@
+package ru.kolidgio.myblog.bulk;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+class CsvRecordWriter implements RecordWriter {
+    private final Writer out;
+    private final List<Column> columns;
+    private boolean headerWritten;
+
+    CsvRecordWriter(Writer out, List<Column> columns) {
+        this.out = out;
+        this.columns = columns;
+    }
+
+    @Override
+    public void write(Object[] values) throws IOException {
+        if (!headerWritten) {
+            out.write(String.join(",", columns.stream().map(Column::name).toList()));
+            out.write("\r\n");
+            headerWritten = true;
+        }
+        StringBuilder line = new StringBuilder(128);
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) line.append(',');
+            String value = columns.get(i).type().format(values[i]);
+            if (value != null) {
+                appendField(line, value);
+            }
+        }
+        out.write(line.append("\r\n").toString());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private static void appendField(StringBuilder line, String value) {
+        boolean quote = value.isEmpty() || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
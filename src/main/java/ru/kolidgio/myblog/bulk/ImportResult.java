@@ -0,0 +1,4 @@
+package ru.kolidgio.myblog.bulk;
+
+public record ImportResult(BulkEntity entity, long rows, long chunks) {
+}
@@ -0,0 +1,139 @@
+package ru.kolidgio.myblog.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class NdjsonRecordReader implements RecordReader {
+    private final BufferedReader in;
+    private long lineNumber;
+
+    NdjsonRecordReader(Reader in) {
+        this.in = new BufferedReader(in);
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            lineNumber++;
+            if (line == null) return null;
+        } while (line.isBlank());
+        return new Parser(line, lineNumber).record();
+    }
+
+    private static final class Parser {
+        private final String s;
+        private final long lineNumber;
+        private int pos;
+
+        Parser(String s, long lineNumber) {
+            this.s = s;
+            this.lineNumber = lineNumber;
+        }
+
+        // одна строка - ровно один объект, хвост после закрывающей скобки не допускаем
+        Map<String, String> record() {
+            skipWhitespace();
+            Map<String, String> values = object();
+            skipWhitespace();
+            if (pos < s.length()) throw error();
+            return values;
+        }
+
+        private Map<String, String> object() {
+            Map<String, String> values = new LinkedHashMap<>();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return values;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                values.put(key, value());
+                skipWhitespace();
+                char c = take();
+                if (c == '}') return values;
+                if (c != ',') throw error();
+            }
+        }
+
+        private String value() {
+            char c = peek();
+            if (c == '"') return string();
+            if (s.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            }
+            int start = pos;
+            while (pos < s.length() && "+-.0123456789eEtrufals".indexOf(s.charAt(pos)) >= 0) {
+                pos++;
+            }
+            if (start == pos) throw error();
+            return s.substring(start, pos);
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder out = new StringBuilder();
+            while (true) {
+                char c = take();
+                if (c == '"') return out.toString();
+                if (c != '\\') {
+                    out.append(c);
+                    continue;
+                }
+                char escaped = take();
+                switch (escaped) {
+                    case '"', '\\', '/' -> out.append(escaped);
+                    case 'b' -> out.append('\b');
+                    case 'f' -> out.append('\f');
+                    case 'n' -> out.append('\n');
+                    case 'r' -> out.append('\r');
+                    case 't' -> out.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > s.length()) throw error();
+                        try {
+                            out.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error();
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error();
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        private char peek() {
+            if (pos >= s.length()) throw error();
+            return s.charAt(pos);
+        }
+
+        private char take() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private void expect(char expected) {
+            if (take() != expected) throw error();
+        }
+
+        private IllegalArgumentException error() {
+            return new IllegalArgumentException("Некорректная строка NDJSON " + lineNumber + ", позиция " + pos);
+        }
+    }
+}
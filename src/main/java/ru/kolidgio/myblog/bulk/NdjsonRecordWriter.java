@@ -0,0 +1,62 @@
+package ru.kolidgio.myblog.bulk;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+class NdjsonRecordWriter implements RecordWriter {
+    private final Writer out;
+    private final List<Column> columns;
+
+    NdjsonRecordWriter(Writer out, List<Column> columns) {
+        this.out = out;
+        this.columns = columns;
+    }
+
+    @Override
+    public void write(Object[] values) throws IOException {
+        StringBuilder line = new StringBuilder(128).append('{');
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            if (i > 0) line.append(',');
+            quote(line, column.name());
+            line.append(':');
+            String value = column.type().format(values[i]);
+            if (value == null) {
+                line.append("null");
+            } else if (column.type().isNumeric()) {
+                line.append(value);
+            } else {
+                quote(line, value);
+            }
+        }
+        out.write(line.append('}').append('\n').toString());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private static void quote(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,9 @@
+package ru.kolidgio.myblog.bulk;
+
+import java.io.IOException;
+import java.util.Map;
+
+interface RecordReader {
+
+    Map<String, String> next() throws IOException;
+}
@@ -0,0 +1,10 @@
+package ru.kolidgio.myblog.bulk;
+
+import java.io.IOException;
+
+interface RecordWriter {
+
+    void write(Object[] values) throws IOException;
+
+    void flush() throws IOException;
+}
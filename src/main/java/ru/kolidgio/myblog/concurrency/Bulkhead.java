@@ -0,0 +1,39 @@
+package ru.kolidgio.myblog.concurrency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class Bulkhead {
+    private final Semaphore permits;
+    private final Timer waitTimer;
+
+    public Bulkhead(String name, int permits, MeterRegistry registry) {
+        this.permits = new Semaphore(permits, true);
+        this.waitTimer = Timer.builder("myblog.db.bulkhead.wait")
+                .tag("bulkhead", name)
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("myblog.db.bulkhead.queued", this.permits, Semaphore::getQueueLength)
+                .tag("bulkhead", name)
+                .register(registry);
+        Gauge.builder("myblog.db.bulkhead.available", this.permits, Semaphore::availablePermits)
+                .tag("bulkhead", name)
+                .register(registry);
+    }
+
+    public void acquire() {
+        long start = System.nanoTime();
+        if (!permits.tryAcquire()) {
+            permits.acquireUninterruptibly();
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    public void release() {
+        permits.release();
+    }
+}
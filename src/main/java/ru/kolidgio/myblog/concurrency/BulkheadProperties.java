@@ -0,0 +1,14 @@
+package ru.kolidgio.myblog.concurrency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "myblog.db.bulkhead")
+public record BulkheadProperties(int defaultPermits, Map<String, Integer> permits) {
+
+    public int permitsFor(String name) {
+        Integer configured = permits == null ? null : permits.get(name);
+        return configured == null ? defaultPermits : configured;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.kolidgio.myblog.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@RequiredArgsConstructor
+public class BulkheadRegistry {
+    private final BulkheadProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    public Bulkhead get(String name) {
+        return bulkheads.computeIfAbsent(name,
+                n -> new Bulkhead(n, properties.permitsFor(n), meterRegistry));
+    }
+}
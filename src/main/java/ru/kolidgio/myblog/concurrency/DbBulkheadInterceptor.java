@@ -0,0 +1,36 @@
+package ru.kolidgio.myblog.concurrency;
+
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotationUtils;
+
+@RequiredArgsConstructor
+public class DbBulkheadInterceptor implements MethodInterceptor {
+    private static final ThreadLocal<Boolean> INSIDE = ThreadLocal.withInitial(() -> false);
+
+    private final ObjectProvider<BulkheadRegistry> registry;
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (INSIDE.get() || invocation.getMethod().getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        DbBulkhead annotation = AnnotationUtils.findAnnotation(
+                AopUtils.getTargetClass(invocation.getThis()), DbBulkhead.class);
+        if (annotation == null) {
+            return invocation.proceed();
+        }
+        Bulkhead bulkhead = registry.getObject().get(annotation.value());
+        bulkhead.acquire();
+        INSIDE.set(true);
+        try {
+            return invocation.proceed();
+        } finally {
+            INSIDE.set(false);
+            bulkhead.release();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.kolidgio.myblog.config.cache;
+
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+// метрики кэшей (cache, cache.manager) регистрирует Spring Boot; для этого в spec нужен recordStats
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String SHARED_CACHE_MANAGER = "sharedCacheManager";
+
+    @Bean
+    @Primary
+    public CacheManager cacheManager(@Value("${myblog.cache.spec}") String spec,
+                                     @Qualifier(SHARED_CACHE_MANAGER) ObjectProvider<CacheManager> shared) {
+        CaffeineCacheManager local = new CaffeineCacheManager(CacheNames.ALL);
+        local.setCaffeineSpec(CaffeineSpec.parse(spec));
+        local.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(new TieredCacheManager(local, shared.getIfAvailable()));
+    }
+}
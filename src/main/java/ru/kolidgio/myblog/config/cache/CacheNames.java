@@ -0,0 +1,17 @@
+package ru.kolidgio.myblog.config.cache;
+
+public final class CacheNames {
+    public static final String POSTS = "posts";
+    public static final String USERS = "users";
+    public static final String USERS_BY_USERNAME = "usersByUsername";
+    public static final String USERS_BY_EMAIL = "usersByEmail";
+    public static final String POST_FEED = "postFeed";
+    public static final String COMMENT_FEED = "commentFeed";
+
+    public static final String[] ALL = {
+            POSTS, USERS, USERS_BY_USERNAME, USERS_BY_EMAIL, POST_FEED, COMMENT_FEED
+    };
+
+    private CacheNames() {
+    }
+}
@@ -0,0 +1,70 @@
+package ru.kolidgio.myblog.config.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+public class TieredCache implements Cache {
+    private final Cache local;
+    private final Cache shared;
+
+    public TieredCache(Cache local, Cache shared) {
+        this.local = local;
+        this.shared = shared;
+    }
+
+    @Override
+    public String getName() {
+        return local.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = local.get(key);
+        if (value != null) return value;
+        value = shared.get(key);
+        if (value != null) {
+            local.put(key, value.get());
+        }
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        T value = local.get(key, type);
+        if (value != null) return value;
+        value = shared.get(key, type);
+        if (value != null) {
+            local.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return local.get(key, () -> shared.get(key, valueLoader));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        shared.put(key, value);
+        local.put(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        shared.evict(key);
+        local.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        shared.clear();
+        local.clear();
+    }
+}
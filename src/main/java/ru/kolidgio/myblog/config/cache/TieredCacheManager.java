@@ -0,0 +1,36 @@
+package ru.kolidgio.myblog.config.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class TieredCacheManager implements CacheManager {
+    private final CacheManager local;
+    private final CacheManager shared;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TieredCacheManager(CacheManager local, CacheManager shared) {
+        this.local = local;
+        this.shared = shared;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return local.getCacheNames();
+    }
+
+    private Cache createCache(String name) {
+        Cache localCache = local.getCache(name);
+        if (localCache == null || shared == null) return localCache;
+        Cache sharedCache = shared.getCache(name);
+        return sharedCache == null ? localCache : new TieredCache(localCache, sharedCache);
+    }
+}
@@ -0,0 +1,9 @@
+package ru.kolidgio.myblog.dto;
+
+import java.util.List;
+
+public record CursorPage<T>(
+        List<T> items,
+        String nextCursor
+) {
+}
@@ -0,0 +1,24 @@
+package ru.kolidgio.myblog.dto.comment;
+
+import ru.kolidgio.myblog.model.Comment;
+
+import java.time.LocalDateTime;
+
+public record CommentView(
+        Long id,
+        Long postId,
+        Long parentId,
+        int depth,
+        long replyCount,
+        Long authorId,
+        String authorUsername,
+        String content,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {
+
+    public static CommentView from(Comment c) {
+        return new CommentView(c.getId(), c.getPost().getId(), c.getParentId(), c.getDepth(), c.getReplyCount(),
+                c.getUser().getId(), c.getUser().getUsername(), c.getContent(), c.getCreatedAt(), c.getUpdatedAt());
+    }
+}
@@ -7,6 +7,7 @@ import jakarta.validation.constraints.Size;
 
 public record CreateCommentDto(
         @NotNull Long userId,
-        @NotBlank @Size(max = 2000) String content
+        @NotBlank @Size(max = 2000) String content,
+        Long parentId
 ) {
 }
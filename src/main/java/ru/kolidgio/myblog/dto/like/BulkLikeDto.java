@@ -0,0 +1,14 @@
+package ru.kolidgio.myblog.dto.like;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BulkLikeDto(
+        @NotNull Long userId,
+        @NotEmpty @Size(max = 200) List<@Valid @NotNull LikeStateDto> likes
+) {
+}
@@ -0,0 +1,9 @@
+package ru.kolidgio.myblog.dto.like;
+
+import jakarta.validation.constraints.NotNull;
+
+public record LikeStateDto(
+        @NotNull Long postId,
+        @NotNull Boolean liked
+) {
+}
@@ -0,0 +1,8 @@
+package ru.kolidgio.myblog.dto.like;
+
+public record LikeStateResult(
+        Long postId,
+        boolean liked,
+        long likesCount
+) {
+}
@@ -0,0 +1,8 @@
+package ru.kolidgio.myblog.dto.media;
+
+public record UploadedImage(
+        String hash,
+        String imagePath,
+        String thumbnailPath
+) {
+}
@@ -0,0 +1,19 @@
+package ru.kolidgio.myblog.dto.post;
+
+import java.time.LocalDateTime;
+
+public record PostFeedItem(
+        Long id,
+        String title,
+        String excerpt,
+        String imagePath,
+        String thumbnailPath,
+        Long authorId,
+        String authorUsername,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        long likesCount,
+        long commentsCount,
+        boolean likedByMe
+) {
+}
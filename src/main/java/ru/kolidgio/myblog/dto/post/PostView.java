@@ -0,0 +1,24 @@
+package ru.kolidgio.myblog.dto.post;
+
+import ru.kolidgio.myblog.model.Post;
+
+import java.time.LocalDateTime;
+
+// кэшируемое представление поста: без сущности автора вместе с хэшем пароля
+public record PostView(
+        Long id,
+        String title,
+        String imagePath,
+        String content,
+        Long authorId,
+        String authorUsername,
+        long likesCount,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {
+
+    public static PostView from(Post p) {
+        return new PostView(p.getId(), p.getTitle(), p.getImagePath(), p.getContent(), p.getUser().getId(),
+                p.getUser().getUsername(), p.getLikesCount(), p.getCreatedAt(), p.getUpdatedAt());
+    }
+}
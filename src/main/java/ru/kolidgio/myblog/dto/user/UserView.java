@@ -0,0 +1,15 @@
+package ru.kolidgio.myblog.dto.user;
+
+import ru.kolidgio.myblog.model.User;
+
+// в кэш пользователей попадает только это представление: хэш пароля не должен лежать в кэше
+public record UserView(
+        Long id,
+        String username,
+        String email
+) {
+
+    public static UserView from(User u) {
+        return new UserView(u.getId(), u.getUsername(), u.getEmail());
+    }
+}
@@ -0,0 +1,47 @@
+package ru.kolidgio.myblog.media;
+
+import java.util.Optional;
+
+public enum ImageFormat {
+    JPEG("jpg", "image/jpeg", "jpg"),
+    PNG("png", "image/png", "png"),
+    GIF("gif", "image/gif", "png");
+
+    private final String extension;
+    private final String contentType;
+    private final String variantExtension;
+
+    ImageFormat(String extension, String contentType, String variantExtension) {
+        this.extension = extension;
+        this.contentType = contentType;
+        this.variantExtension = variantExtension;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public ImageFormat variantFormat() {
+        return fromExtension(variantExtension).orElseThrow();
+    }
+
+    public static Optional<ImageFormat> fromExtension(String extension) {
+        for (ImageFormat format : values()) {
+            if (format.extension.equals(extension)) return Optional.of(format);
+        }
+        return Optional.empty();
+    }
+
+    static Optional<ImageFormat> fromImageIo(String formatName) {
+        return switch (formatName.toLowerCase()) {
+            case "jpeg", "jpg" -> Optional.of(JPEG);
+            case "png" -> Optional.of(PNG);
+            case "gif" -> Optional.of(GIF);
+            default -> Optional.empty();
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package ru.kolidgio.myblog.media;
+
+public enum ImageVariant {
+    ORIGINAL(""),
+    MEDIUM("-medium"),
+    THUMB("-thumb");
+
+    private final String suffix;
+
+    ImageVariant(String suffix) {
+        this.suffix = suffix;
+    }
+
+    public String suffix() {
+        return suffix;
+    }
+
+    static ImageVariant fromSuffix(String suffix) {
+        for (ImageVariant variant : values()) {
+            if (variant.suffix.equals(suffix)) return variant;
+        }
+        throw new IllegalArgumentException("Неизвестный вариант изображения: " + suffix);
+    }
+}
@@ -0,0 +1,123 @@
+package ru.kolidgio.myblog.media;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+public class ImageVariantGenerator {
+    private final MediaStore store;
+    private final Map<ImageVariant, Integer> widths;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Timer timer;
+
+    public ImageVariantGenerator(MediaStore store, MediaProperties properties, MeterRegistry registry) {
+        this.store = store;
+        this.widths = Map.of(
+                ImageVariant.MEDIUM, properties.mediumWidth(),
+                ImageVariant.THUMB, properties.thumbWidth());
+        this.executor = new ThreadPoolExecutor(
+                properties.workers(), properties.workers(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.queueCapacity()),
+                Thread.ofPlatform().name("image-variants-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timer = Timer.builder("myblog.media.variants").publishPercentileHistogram().register(registry);
+        Gauge.builder("myblog.media.queue.size", executor, e -> e.getQueue().size()).register(registry);
+    }
+
+    // очередь ограничена: при переполнении задача отбрасывается и повторится при первом запросе варианта
+    public void submit(MediaRef original) {
+        if (!inFlight.add(original.hash())) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    timer.record(() -> generate(original));
+                } finally {
+                    inFlight.remove(original.hash());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(original.hash());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private void generate(MediaRef original) {
+        try {
+            Path source = store.find(original).orElse(null);
+            if (source == null) return;
+            BufferedImage image = ImageIO.read(source.toFile());
+            if (image == null) return;
+            for (Map.Entry<ImageVariant, Integer> entry : widths.entrySet()) {
+                MediaRef variant = original.withVariant(entry.getKey());
+                if (store.find(variant).isPresent()) continue;
+                write(resize(image, entry.getValue(), variant.format()), variant);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось построить варианты изображения {}", original.hash(), e);
+        }
+    }
+
+    private void write(BufferedImage image, MediaRef variant) throws IOException {
+        Path temp = store.createTemp();
+        try {
+            ImageIO.write(image, variant.format() == ImageFormat.JPEG ? "jpeg" : "png", temp.toFile());
+            store.publish(temp, variant);
+            temp = null;
+        } finally {
+            MediaStore.deleteQuietly(temp);
+        }
+    }
+
+    // уменьшение шагами не больше чем вдвое, иначе билинейная интерполяция даёт заметный алиасинг
+    private static BufferedImage resize(BufferedImage source, int targetWidth, ImageFormat format) {
+        int type = format == ImageFormat.JPEG ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if (width <= targetWidth) return redraw(source, width, height, type);
+        int targetHeight = Math.max(1, (int) Math.round((double) height * targetWidth / width));
+        BufferedImage current = source;
+        while (width > targetWidth) {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = redraw(current, width, height, type);
+        }
+        return current;
+    }
+
+    private static BufferedImage redraw(BufferedImage source, int width, int height, int type) {
+        BufferedImage target = new BufferedImage(width, height, type);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.kolidgio.myblog.media;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@ConfigurationProperties(prefix = "myblog.media")
+public record MediaProperties(
+        Path root,
+        long maxPixels,
+        int thumbWidth,
+        int mediumWidth,
+        int workers,
+        int queueCapacity
+) {
+}
@@ -0,0 +1,50 @@
+package ru.kolidgio.myblog.media;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public record MediaRef(String hash, ImageVariant variant, ImageFormat format) {
+    public static final String URL_PREFIX = "/media/";
+    private static final Pattern NAME = Pattern.compile("([0-9a-f]{64})(-medium|-thumb)?\\.(jpg|png|gif)");
+
+    public static Optional<MediaRef> parse(String name) {
+        if (name == null) return Optional.empty();
+        Matcher matcher = NAME.matcher(name);
+        if (!matcher.matches()) return Optional.empty();
+        String suffix = matcher.group(2) == null ? "" : matcher.group(2);
+        return ImageFormat.fromExtension(matcher.group(3))
+                .map(format -> new MediaRef(matcher.group(1), ImageVariant.fromSuffix(suffix), format));
+    }
+
+    public static Optional<MediaRef> fromUrl(String url) {
+        if (url == null || !url.startsWith(URL_PREFIX)) return Optional.empty();
+        return parse(url.substring(URL_PREFIX.length()));
+    }
+
+    public static String thumbnailUrl(String imagePath) {
+        return fromUrl(imagePath)
+                .filter(ref -> ref.variant() == ImageVariant.ORIGINAL)
+                .map(ref -> ref.withVariant(ImageVariant.THUMB).url())
+                .orElse(imagePath);
+    }
+
+    // из оригинала; формат варианта однозначно выводится из формата оригинала
+    public MediaRef withVariant(ImageVariant target) {
+        if (variant != ImageVariant.ORIGINAL) throw new IllegalStateException("Вариант строится только от оригинала");
+        if (target == ImageVariant.ORIGINAL) return this;
+        return new MediaRef(hash, target, format.variantFormat());
+    }
+
+    public String fileName() {
+        return hash + variant.suffix() + "." + format.extension();
+    }
+
+    public String url() {
+        return URL_PREFIX + fileName();
+    }
+
+    public String etag() {
+        return "\"" + hash + variant.suffix() + "\"";
+    }
+}
@@ -0,0 +1,133 @@
+package ru.kolidgio.myblog.media;
+
+import org.springframework.stereotype.Component;
+import ru.kolidgio.myblog.service.errors.BadRequestException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Optional;
+
+@Component
+public class MediaStore {
+    private final Path root;
+    private final Path incoming;
+    private final long maxPixels;
+
+    public MediaStore(MediaProperties properties) {
+        this.root = properties.root().toAbsolutePath().normalize();
+        this.incoming = root.resolve("incoming");
+        this.maxPixels = properties.maxPixels();
+        try {
+            Files.createDirectories(incoming);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать каталог медиафайлов " + root, e);
+        }
+    }
+
+    // файл кладётся по sha-256 содержимого: повторная загрузка того же файла ничего не пишет
+    public MediaRef store(InputStream content) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(incoming, "upload-", ".tmp");
+            MessageDigest digest = sha256();
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                content.transferTo(out);
+            }
+            ImageFormat format = probe(temp);
+            MediaRef ref = new MediaRef(HexFormat.of().formatHex(digest.digest()), ImageVariant.ORIGINAL, format);
+            Path target = path(ref);
+            if (Files.exists(target)) return ref;
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                temp = null;
+            } catch (FileAlreadyExistsException ignored) {
+            }
+            return ref;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить изображение", e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    public Optional<Path> find(MediaRef ref) {
+        Path path = path(ref);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    // у png-варианта оригиналом может быть как png, так и gif
+    public Optional<MediaRef> findOriginal(MediaRef variant) {
+        for (ImageFormat format : ImageFormat.values()) {
+            if (format.variantFormat() != variant.format()) continue;
+            MediaRef original = new MediaRef(variant.hash(), ImageVariant.ORIGINAL, format);
+            if (Files.isRegularFile(path(original))) return Optional.of(original);
+        }
+        return Optional.empty();
+    }
+
+    public Path path(MediaRef ref) {
+        String hash = ref.hash();
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(ref.fileName());
+    }
+
+    Path createTemp() throws IOException {
+        return Files.createTempFile(incoming, "variant-", ".tmp");
+    }
+
+    void publish(Path temp, MediaRef ref) throws IOException {
+        try {
+            Files.move(temp, path(ref), StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException ignored) {
+            deleteQuietly(temp);
+        }
+    }
+
+    private ImageFormat probe(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) throw new BadRequestException("Файл не является изображением");
+            ImageReader reader = readers.next();
+            try {
+                ImageFormat format = ImageFormat.fromImageIo(reader.getFormatName())
+                        .orElseThrow(() -> new BadRequestException("Поддерживаются только JPEG, PNG и GIF"));
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) throw new BadRequestException("Слишком большое изображение");
+                return format;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    static void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
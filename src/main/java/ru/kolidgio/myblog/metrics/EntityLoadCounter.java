@@ -0,0 +1,11 @@
+package ru.kolidgio.myblog.metrics;
+
+import jakarta.persistence.PostLoad;
+
+public class EntityLoadCounter {
+
+    @PostLoad
+    void loaded(Object entity) {
+        QueryStats.entityLoaded();
+    }
+}
@@ -0,0 +1,39 @@
+package ru.kolidgio.myblog.metrics;
+
+public final class QueryStats {
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private int entityLoads;
+
+    private QueryStats() {
+    }
+
+    public static void begin() {
+        CURRENT.set(new QueryStats());
+    }
+
+    public static QueryStats end() {
+        QueryStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats == null ? new QueryStats() : stats;
+    }
+
+    static void statementPrepared() {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) stats.statements++;
+    }
+
+    static void entityLoaded() {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) stats.entityLoads++;
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public int entityLoads() {
+        return entityLoads;
+    }
+}
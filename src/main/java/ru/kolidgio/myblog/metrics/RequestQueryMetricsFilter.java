@@ -0,0 +1,46 @@
+package ru.kolidgio.myblog.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+@Component
+@RequiredArgsConstructor
+public class RequestQueryMetricsFilter extends OncePerRequestFilter {
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry registry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryStats.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            QueryStats stats = QueryStats.end();
+            String uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern
+                    ? pattern
+                    : UNKNOWN_URI;
+            summary("myblog.request.sql.statements", "statements", uri).record(stats.statements());
+            summary("myblog.request.entity.loads", "entities", uri).record(stats.entityLoads());
+        }
+    }
+
+    private DistributionSummary summary(String name, String unit, String uri) {
+        return DistributionSummary.builder(name)
+                .baseUnit(unit)
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.kolidgio.myblog.metrics;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@RequiredArgsConstructor
+public class ServiceTimingInterceptor implements MethodInterceptor {
+    static final String DEFAULT_NAME = "myblog.service";
+
+    private final ObjectProvider<MeterRegistry> registry;
+    // таймер собирается и регистрируется один раз на класс, метод и исключение
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Optional<Timed>> annotations = new ConcurrentHashMap<>();
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        if (!Modifier.isPublic(method.getModifiers()) || method.getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        Class<?> target = AopUtils.getTargetClass(invocation.getThis());
+        Timed timed = annotations.computeIfAbsent(target,
+                type -> Optional.ofNullable(AnnotationUtils.findAnnotation(type, Timed.class))).orElse(null);
+        if (timed == null) {
+            return invocation.proceed();
+        }
+        long start = System.nanoTime();
+        String exception = "none";
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            timer(timed, target, method, exception).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(Timed timed, Class<?> target, Method method, String exception) {
+        return timers.computeIfAbsent(new TimerKey(target, method, exception), key ->
+                Timer.builder(timed.value().isEmpty() ? DEFAULT_NAME : timed.value())
+                        .tag("class", target.getSimpleName())
+                        .tag("method", method.getName())
+                        .tag("exception", exception)
+                        .publishPercentileHistogram(timed.histogram())
+                        .register(registry.getObject()));
+    }
+
+    private record TimerKey(Class<?> target, Method method, String exception) {
+    }
+}
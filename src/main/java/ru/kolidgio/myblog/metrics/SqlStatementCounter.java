@@ -0,0 +1,12 @@
+package ru.kolidgio.myblog.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+public class SqlStatementCounter implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryStats.statementPrepared();
+        return sql;
+    }
+}
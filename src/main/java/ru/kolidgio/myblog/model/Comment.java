@@ -5,6 +5,9 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import ru.kolidgio.myblog.metrics.EntityLoadCounter;
 
 import java.time.LocalDateTime;
 
@@ -13,10 +16,15 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@EntityListeners(EntityLoadCounter.class)
 @Table(name = "comments")
 public class Comment {
+    public static final int PATH_SEGMENT = 15;
+    public static final int MAX_DEPTH = 20;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comments_seq")
+    @SequenceGenerator(name = "comments_seq", sequenceName = "comments_seq", allocationSize = 50)
     private Long id;
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", nullable = false)
@@ -24,9 +32,17 @@ public class Comment {
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "post_id", nullable = false)
     private Post post;
-    @Lob
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
     @Column(nullable = false)
     private String content;
+    @Column(name = "parent_id", updatable = false)
+    private Long parentId;
+    @Column(nullable = false, updatable = false, length = PATH_SEGMENT * (MAX_DEPTH + 1))
+    private String path;
+    @Column(nullable = false, updatable = false)
+    private int depth;
+    @Column(name = "reply_count", nullable = false, insertable = false, updatable = false)
+    private long replyCount;
     @Column(name ="created_at",nullable = false,updatable = false,insertable = false)
     private LocalDateTime createdAt;
     @Column(name ="updated_at",nullable = false)
@@ -41,4 +57,32 @@ public class Comment {
     void preUpdate() {
         updatedAt = LocalDateTime.now();
     }
+
+    // путь — цепочка id предков фиксированной ширины: поддерево читается одним диапазоном по индексу
+    public void placeUnder(Comment parent) {
+        if (id == null) throw new IllegalStateException("Путь комментария вычисляется после выдачи id");
+        if (parent != null && parent.getPath() == null) {
+            throw new IllegalStateException("У комментария " + parent.getId() + " не заполнен путь");
+        }
+        parentId = parent == null ? null : parent.getId();
+        depth = parent == null ? 0 : parent.getDepth() + 1;
+        path = (parent == null ? "" : parent.getPath()) + pathSegment(id);
+    }
+
+    public static String pathSegment(long id) {
+        return String.format("%0" + PATH_SEGMENT + "d", id);
+    }
+
+    // верхняя граница поддерева: путь, численно следующий за префиксом той же длины
+    public static String pathUpperBound(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            throw new IllegalArgumentException("Префикс пути комментария не должен быть пустым");
+        }
+        char[] chars = prefix.toCharArray();
+        int i = chars.length - 1;
+        while (i >= 0 && chars[i] == '9') chars[i--] = '0';
+        if (i < 0) return "A";
+        chars[i]++;
+        return new String(chars);
+    }
 }
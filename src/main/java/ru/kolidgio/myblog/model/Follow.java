@@ -0,0 +1,32 @@
+package ru.kolidgio.myblog.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import ru.kolidgio.myblog.metrics.EntityLoadCounter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@EntityListeners(EntityLoadCounter.class)
+@Table(name = "follows")
+public class Follow {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "follows_seq")
+    @SequenceGenerator(name = "follows_seq", sequenceName = "follows_seq", allocationSize = 50)
+    private Long id;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "follower_id", nullable = false)
+    private User follower;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "followee_id", nullable = false)
+    private User followee;
+    @Column(name = "created_at", nullable = false, updatable = false, insertable = false)
+    private LocalDateTime createdAt;
+}
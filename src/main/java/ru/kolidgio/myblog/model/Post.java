@@ -5,6 +5,10 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.type.SqlTypes;
+import ru.kolidgio.myblog.metrics.EntityLoadCounter;
 
 import java.time.LocalDateTime;
 
@@ -13,34 +17,56 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(EntityLoadCounter.class)
 @Table(name = "posts")
+@SQLRestriction("deleted_at is null")
 public class Post {
+    public static final int EXCERPT_LENGTH = 280;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_seq")
+    @SequenceGenerator(name = "posts_seq", sequenceName = "posts_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false, length = 255)
     private String title;
     @Column(name = "image_path", length = 512)
     private String imagePath;
-    @Lob
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
     @Column(nullable = false)
     private String content;
+    @Column(length = EXCERPT_LENGTH + 1)
+    private String excerpt;
     @ManyToOne(fetch = FetchType.LAZY,optional = false)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
+    @Column(name = "likes_count", nullable = false, insertable = false, updatable = false)
+    private long likesCount;
     @Column(name = "created_at", nullable = false, updatable = false, insertable = false)
     private LocalDateTime createdAt;
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
 
     @PrePersist
     void prePersist() {
         updatedAt = LocalDateTime.now();
+        excerpt = excerptOf(content);
     }
 
     @PreUpdate
     void preUpdate() {
         updatedAt = LocalDateTime.now();
+        excerpt = excerptOf(content);
+    }
+
+    public static String excerptOf(String content) {
+        if (content == null) return null;
+        String head = content.length() > EXCERPT_LENGTH * 2 ? content.substring(0, EXCERPT_LENGTH * 2) : content;
+        String flat = head.strip().replaceAll("\\s+", " ");
+        if (flat.length() <= EXCERPT_LENGTH && head.length() == content.length()) return flat;
+        int cut = flat.lastIndexOf(' ', EXCERPT_LENGTH);
+        return flat.substring(0, cut > 0 ? cut : Math.min(flat.length(), EXCERPT_LENGTH)) + "…";
     }
 
 }
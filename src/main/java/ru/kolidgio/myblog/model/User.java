@@ -7,16 +7,23 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.SQLRestriction;
+import ru.kolidgio.myblog.metrics.EntityLoadCounter;
+
+import java.time.LocalDateTime;
 
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(EntityLoadCounter.class)
 @Table(name = "users")
+@SQLRestriction("deleted_at is null")
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false, length = 255)
     private String username;
@@ -24,4 +31,6 @@ public class User {
     private String password;
     @Column(nullable = false, unique = true, length = 255)
     private String email;
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
 }
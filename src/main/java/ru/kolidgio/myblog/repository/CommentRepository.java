@@ -2,8 +2,16 @@ package ru.kolidgio.myblog.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import ru.kolidgio.myblog.model.Comment;
+import ru.kolidgio.myblog.repository.projection.IdCount;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
@@ -12,4 +20,43 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     Page<Comment> findByPost_IdOrderByCreatedAtAsc(Long postId, Pageable pageable);
 
     Long countByPost_id(Long postId);
+
+    @Query("""
+            select new ru.kolidgio.myblog.repository.projection.IdCount(c.post.id, count(c))
+            from Comment c
+            where c.post.id in :postIds
+            group by c.post.id
+            """)
+    List<IdCount> countByPostIds(Collection<Long> postIds);
+
+    // комментарии удалённых авторов скрываются так же, как их посты, до того как их вычистит PurgeReaper
+    @Query("""
+            select c from Comment c left join fetch c.user u
+            where c.post.id = :postId and (fk(c.user) is null or (u.id is not null and u.deletedAt is null))
+            order by c.createdAt asc, c.id asc
+            """)
+    Slice<Comment> findFeed(Long postId, Pageable pageable);
+
+    @Query("""
+            select c from Comment c left join fetch c.user u
+            where c.post.id = :postId and (fk(c.user) is null or (u.id is not null and u.deletedAt is null))
+              and (c.createdAt > :createdAt or (c.createdAt = :createdAt and c.id > :id))
+            order by c.createdAt asc, c.id asc
+            """)
+    Slice<Comment> findFeedAfter(Long postId, LocalDateTime createdAt, Long id, Pageable pageable);
+
+    @Query("""
+            select c from Comment c left join fetch c.user u
+            where c.post.id = :postId and c.path >= :from and c.path < :to and c.depth <= :maxDepth
+              and (fk(c.user) is null or (u.id is not null and u.deletedAt is null))
+            order by c.path
+            """)
+    Slice<Comment> findThread(Long postId, String from, String to, int maxDepth, Pageable pageable);
+
+    @Query("select c.id from Comment c where c.post.id = :postId and c.path >= :from and c.path < :to")
+    List<Long> findIdsInRange(Long postId, String from, String to);
+
+    @Modifying
+    @Query("update Comment c set c.replyCount = c.replyCount + :delta where c.id = :commentId")
+    int addReplies(Long commentId, long delta);
 }
@@ -0,0 +1,33 @@
+package ru.kolidgio.myblog.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.kolidgio.myblog.model.Follow;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface FollowRepository extends JpaRepository<Follow, Long> {
+    boolean existsByFollower_IdAndFollowee_Id(Long followerId, Long followeeId);
+
+    @Modifying
+    @Query("delete from Follow f where f.follower.id = :followerId and f.followee.id = :followeeId")
+    int deleteFollow(Long followerId, Long followeeId);
+
+    long countByFollowee_Id(Long followeeId);
+
+    @Query("select f.follower.id from Follow f where f.followee.id = :followeeId")
+    List<Long> findFollowerIds(Long followeeId);
+
+    @Query("select f.followee.id from Follow f where f.follower.id = :followerId")
+    List<Long> findFolloweeIds(Long followerId);
+
+    @Query("""
+            select f.followee.id from Follow f
+            where f.followee.id in :followeeIds
+            group by f.followee.id
+            having count(f) > :threshold
+            """)
+    List<Long> findFolloweesWithMoreFollowersThan(Collection<Long> followeeIds, long threshold);
+}
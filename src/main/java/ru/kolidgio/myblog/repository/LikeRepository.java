@@ -1,8 +1,12 @@
 package ru.kolidgio.myblog.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.kolidgio.myblog.model.Like;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface LikeRepository extends JpaRepository<Like, Long> {
     long countByPost_Id(Long post_id);
 
@@ -10,4 +14,7 @@ public interface LikeRepository extends JpaRepository<Like, Long> {
 
     void deleteByPost_IdAndUser_Id(Long userId, Long postId);
 
+    @Query("select l.post.id from Like l where l.user.id = :userId and l.post.id in :postIds")
+    List<Long> findLikedPostIds(Long userId, Collection<Long> postIds);
+
 }
@@ -2,11 +2,105 @@ package ru.kolidgio.myblog.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import ru.kolidgio.myblog.model.Post;
+import ru.kolidgio.myblog.repository.projection.IdCount;
+import ru.kolidgio.myblog.repository.projection.PostHeader;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
-    Page<Post> findAllByUser_IdOrderByCreatedAtDesc(Long userId, Pageable pageable);
+    // выборка идёт от posts по его индексам: посты удалённого автора отсекаются фильтром по join,
+    // а посты без автора остаются в ленте
+    @Query(value = """
+            select new ru.kolidgio.myblog.repository.projection.PostHeader(
+                p.id, p.title, p.excerpt, p.imagePath, u.id, u.username, p.createdAt, p.updatedAt, p.likesCount)
+            from Post p join p.user u
+            where u.id = :userId and u.deletedAt is null
+            order by p.createdAt desc
+            """,
+            countQuery = "select count(p) from Post p where p.user.id = :userId")
+    Page<PostHeader> findHeaderPageByUser(Long userId, Pageable pageable);
+
+    @Query(value = """
+            select new ru.kolidgio.myblog.repository.projection.PostHeader(
+                p.id, p.title, p.excerpt, p.imagePath, u.id, u.username, p.createdAt, p.updatedAt, p.likesCount)
+            from Post p left join p.user u
+            where (fk(p.user) is null or (u.id is not null and u.deletedAt is null))
+            order by p.createdAt desc
+            """,
+            countQuery = "select count(p) from Post p left join p.user u where (fk(p.user) is null or (u.id is not null and u.deletedAt is null))")
+    Page<PostHeader> findHeaderPage(Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
+    Optional<Post> findWithUserById(Long id);
+
+    @Query("select p.content from Post p where p.id = :postId")
+    Optional<String> findContentById(Long postId);
+
+    @Query("select p.likesCount from Post p where p.id = :postId")
+    Optional<Long> findLikesCountById(Long postId);
+
+    @Query("select new ru.kolidgio.myblog.repository.projection.IdCount(p.id, p.likesCount) from Post p where p.id in :postIds")
+    List<IdCount> findLikesCountsByIds(Collection<Long> postIds);
+
+    @Query("select p.id from Post p where p.user.id in :authorIds and p.id < :beforeId order by p.id desc")
+    List<Long> findIdsByAuthorsBefore(Collection<Long> authorIds, Long beforeId, Pageable pageable);
+
+    @Modifying
+    @Query("update Post p set p.deletedAt = :deletedAt where p.id = :postId")
+    int softDelete(Long postId, LocalDateTime deletedAt);
+
+    @Query("""
+            select new ru.kolidgio.myblog.repository.projection.PostHeader(
+                p.id, p.title, p.excerpt, p.imagePath, u.id, u.username, p.createdAt, p.updatedAt, p.likesCount)
+            from Post p left join p.user u
+            where p.id in :ids and (fk(p.user) is null or (u.id is not null and u.deletedAt is null))
+            """)
+    List<PostHeader> findHeadersByIds(Collection<Long> ids);
+
+    @Query("""
+            select new ru.kolidgio.myblog.repository.projection.PostHeader(
+                p.id, p.title, p.excerpt, p.imagePath, u.id, u.username, p.createdAt, p.updatedAt, p.likesCount)
+            from Post p left join p.user u
+            where (fk(p.user) is null or (u.id is not null and u.deletedAt is null))
+            order by p.createdAt desc, p.id desc
+            """)
+    Slice<PostHeader> findHeaders(Pageable pageable);
+
+    @Query("""
+            select new ru.kolidgio.myblog.repository.projection.PostHeader(
+                p.id, p.title, p.excerpt, p.imagePath, u.id, u.username, p.createdAt, p.updatedAt, p.likesCount)
+            from Post p left join p.user u
+            where (fk(p.user) is null or (u.id is not null and u.deletedAt is null))
+              and (p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id))
+            order by p.createdAt desc, p.id desc
+            """)
+    Slice<PostHeader> findHeadersAfter(LocalDateTime createdAt, Long id, Pageable pageable);
+
+    @Query("""
+            select new ru.kolidgio.myblog.repository.projection.PostHeader(
+                p.id, p.title, p.excerpt, p.imagePath, u.id, u.username, p.createdAt, p.updatedAt, p.likesCount)
+            from Post p join p.user u
+            where u.id = :userId and u.deletedAt is null
+            order by p.createdAt desc, p.id desc
+            """)
+    Slice<PostHeader> findHeadersByUser(Long userId, Pageable pageable);
 
-    Page<Post> findAllByOrderByCreatedAtDesc(Pageable pageable);
+    @Query("""
+            select new ru.kolidgio.myblog.repository.projection.PostHeader(
+                p.id, p.title, p.excerpt, p.imagePath, u.id, u.username, p.createdAt, p.updatedAt, p.likesCount)
+            from Post p join p.user u
+            where u.id = :userId and u.deletedAt is null
+              and (p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id))
+            order by p.createdAt desc, p.id desc
+            """)
+    Slice<PostHeader> findHeadersByUserAfter(Long userId, LocalDateTime createdAt, Long id, Pageable pageable);
 }
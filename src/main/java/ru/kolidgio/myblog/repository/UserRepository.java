@@ -1,8 +1,12 @@
 package ru.kolidgio.myblog.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import ru.kolidgio.myblog.model.User;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -14,4 +18,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByUsername(String username);
 
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.password = :newHash where u.id = :userId and u.password = :oldHash")
+    int replacePassword(Long userId, String oldHash, String newHash);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.deletedAt = :deletedAt where u.id = :userId")
+    int softDelete(Long userId, LocalDateTime deletedAt);
+
 }
@@ -0,0 +1,4 @@
+package ru.kolidgio.myblog.repository.projection;
+
+public record IdCount(Long id, long count) {
+}
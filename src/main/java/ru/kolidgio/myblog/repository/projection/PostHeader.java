@@ -0,0 +1,16 @@
+package ru.kolidgio.myblog.repository.projection;
+
+import java.time.LocalDateTime;
+
+public record PostHeader(
+        Long id,
+        String title,
+        String excerpt,
+        String imagePath,
+        Long authorId,
+        String authorUsername,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        long likesCount
+) {
+}
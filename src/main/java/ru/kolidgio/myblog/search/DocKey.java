@@ -0,0 +1,4 @@
+package ru.kolidgio.myblog.search;
+
+public record DocKey(DocType type, long id) {
+}
@@ -0,0 +1,6 @@
+package ru.kolidgio.myblog.search;
+
+public enum DocType {
+    POST,
+    COMMENT
+}
@@ -0,0 +1,4 @@
+package ru.kolidgio.myblog.search;
+
+public record IndexStats(long posts, long comments, long maxPostId, long maxCommentId) {
+}
@@ -0,0 +1,37 @@
+package ru.kolidgio.myblog.search;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public record IndexedDoc(DocKey key, Long ownerId, Long postId, long version, Map<String, Integer> terms, int length) {
+    private static final int TITLE_WEIGHT = 2;
+
+    public static IndexedDoc post(long postId, Long ownerId, LocalDateTime updatedAt, String title, String content) {
+        Map<String, Integer> terms = new HashMap<>();
+        int length = count(terms, Tokenizer.tokenize(title), TITLE_WEIGHT)
+                + count(terms, Tokenizer.tokenize(content), 1);
+        return new IndexedDoc(new DocKey(DocType.POST, postId), ownerId, postId, versionOf(updatedAt), terms, length);
+    }
+
+    public static IndexedDoc comment(long commentId, Long ownerId, Long postId, LocalDateTime updatedAt, String content) {
+        Map<String, Integer> terms = new HashMap<>();
+        int length = count(terms, Tokenizer.tokenize(content), 1);
+        return new IndexedDoc(new DocKey(DocType.COMMENT, commentId), ownerId, postId, versionOf(updatedAt), terms, length);
+    }
+
+    // updated_at в микросекундах с округлением, как его хранят H2 и PostgreSQL
+    public static long versionOf(LocalDateTime updatedAt) {
+        if (updatedAt == null) return 0;
+        return updatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + (updatedAt.getNano() + 500) / 1000;
+    }
+
+    private static int count(Map<String, Integer> terms, List<String> tokens, int weight) {
+        for (String token : tokens) {
+            terms.merge(token, weight, Integer::sum);
+        }
+        return tokens.size() * weight;
+    }
+}
@@ -0,0 +1,172 @@
+package ru.kolidgio.myblog.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+public class InvertedIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<DocKey, Integer>> postings = new TreeMap<>();
+    private final Map<DocKey, IndexedDoc> docs = new HashMap<>();
+    private long totalLength;
+
+    public void put(IndexedDoc doc) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(doc.key());
+            docs.put(doc.key(), doc);
+            totalLength += doc.length();
+            doc.terms().forEach((term, tf) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(doc.key(), tf));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(DocKey key) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(key) != null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<DocKey> removeIf(Predicate<IndexedDoc> filter) {
+        lock.writeLock().lock();
+        try {
+            List<DocKey> matched = docs.values().stream().filter(filter).map(IndexedDoc::key).toList();
+            matched.forEach(this::removeLocked);
+            return matched;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docs.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<IndexedDoc> snapshot() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(docs.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // -1, если документа нет в индексе
+    public long version(DocKey key) {
+        lock.readLock().lock();
+        try {
+            IndexedDoc doc = docs.get(key);
+            return doc == null ? -1 : doc.version();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public IndexStats stats() {
+        lock.readLock().lock();
+        try {
+            long posts = 0, comments = 0, maxPostId = 0, maxCommentId = 0;
+            for (DocKey key : docs.keySet()) {
+                if (key.type() == DocType.POST) {
+                    posts++;
+                    maxPostId = Math.max(maxPostId, key.id());
+                } else {
+                    comments++;
+                    maxCommentId = Math.max(maxCommentId, key.id());
+                }
+            }
+            return new IndexStats(posts, comments, maxPostId, maxCommentId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<SearchHit> search(List<QueryTerm> query, int limit) {
+        lock.readLock().lock();
+        try {
+            if (docs.isEmpty() || query.isEmpty()) return List.of();
+            double avgLength = Math.max(1.0, (double) totalLength / docs.size());
+            Map<DocKey, Double> scores = new HashMap<>();
+            for (QueryTerm term : query) {
+                for (Map<DocKey, Integer> docsWithTerm : matching(term)) {
+                    double idf = idf(docsWithTerm.size());
+                    docsWithTerm.forEach((key, tf) -> {
+                        double norm = K1 * (1 - B + B * docs.get(key).length() / avgLength);
+                        scores.merge(key, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                    });
+                }
+            }
+            return top(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Map<DocKey, Integer>> matching(QueryTerm term) {
+        if (!term.prefix()) {
+            Map<DocKey, Integer> exact = postings.get(term.text());
+            return exact == null ? List.of() : List.of(exact);
+        }
+        return postings.subMap(term.text(), true, term.text() + Character.MAX_VALUE, false)
+                .values().stream()
+                .limit(MAX_PREFIX_EXPANSIONS)
+                .toList();
+    }
+
+    private double idf(int docFrequency) {
+        return Math.log(1 + (docs.size() - docFrequency + 0.5) / (docFrequency + 0.5));
+    }
+
+    private List<SearchHit> top(Map<DocKey, Double> scores, int limit) {
+        PriorityQueue<Map.Entry<DocKey, Double>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<DocKey, Double> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > limit) heap.poll();
+        }
+        List<SearchHit> hits = new ArrayList<>(heap.size());
+        for (Map.Entry<DocKey, Double> entry : heap) {
+            IndexedDoc doc = docs.get(entry.getKey());
+            hits.add(new SearchHit(doc.key().type(), doc.key().id(), doc.postId(), entry.getValue()));
+        }
+        hits.sort(Comparator.comparingDouble(SearchHit::score).reversed());
+        return hits;
+    }
+
+    private IndexedDoc removeLocked(DocKey key) {
+        IndexedDoc old = docs.remove(key);
+        if (old == null) return null;
+        totalLength -= old.length();
+        for (String term : old.terms().keySet()) {
+            Map<DocKey, Integer> docsWithTerm = postings.get(term);
+            if (docsWithTerm != null) {
+                docsWithTerm.remove(key);
+                if (docsWithTerm.isEmpty()) postings.remove(term);
+            }
+        }
+        return old;
+    }
+}
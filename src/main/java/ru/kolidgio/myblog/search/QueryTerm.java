@@ -0,0 +1,23 @@
+package ru.kolidgio.myblog.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public record QueryTerm(String text, boolean prefix) {
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    public static List<QueryTerm> parse(String query) {
+        List<QueryTerm> terms = new ArrayList<>();
+        if (query == null) return terms;
+        for (String raw : query.trim().split("\\s+")) {
+            boolean prefix = raw.endsWith("*");
+            List<String> tokens = Tokenizer.tokenize(raw);
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                boolean last = i == tokens.size() - 1;
+                terms.add(new QueryTerm(token, prefix && last && token.length() >= MIN_PREFIX_LENGTH));
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,4 @@
+package ru.kolidgio.myblog.search;
+
+public record SearchHit(DocType type, Long id, Long postId, double score) {
+}
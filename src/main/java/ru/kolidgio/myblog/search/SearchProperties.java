@@ -0,0 +1,9 @@
+package ru.kolidgio.myblog.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@ConfigurationProperties(prefix = "myblog.search")
+public record SearchProperties(Path indexDir, int maxSegments, int maxResults) {
+}
@@ -0,0 +1,189 @@
+package ru.kolidgio.myblog.search;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.kolidgio.myblog.bulk.BulkEntity;
+import ru.kolidgio.myblog.bulk.BulkImportCompleted;
+import ru.kolidgio.myblog.model.Comment;
+import ru.kolidgio.myblog.model.Post;
+import ru.kolidgio.myblog.service.errors.BadRequestException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+    private static final int REINDEX_FETCH_SIZE = 500;
+    // комментарии скрытого поста остаются в таблице, пока их не удалит PurgeReaper
+    private static final String LIVE_COMMENTS =
+            "from comments c join posts p on p.id = c.post_id where p.deleted_at is null";
+    private static final String POST_VERSION = "coalesce(updated_at, created_at) as version";
+    private static final String COMMENT_VERSION = "c.updated_at as version";
+
+    private final SearchProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final InvertedIndex index = new InvertedIndex();
+    private final Queue<SegmentOp> pending = new ConcurrentLinkedQueue<>();
+    private SegmentStore store;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void open() throws IOException {
+        store = new SegmentStore(properties.indexDir());
+        if (!store.replay(this::apply) || !matchesDatabase()) {
+            rebuild();
+        }
+    }
+
+    @EventListener
+    public void onBulkImport(BulkImportCompleted event) throws IOException {
+        if (event.entity() == BulkEntity.POSTS || event.entity() == BulkEntity.COMMENTS) {
+            rebuild();
+        }
+    }
+
+    public List<SearchHit> search(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Поисковый запрос не должен быть пустым");
+        }
+        if (limit <= 0 || limit > properties.maxResults()) {
+            throw new BadRequestException("limit должен быть от 1 до " + properties.maxResults());
+        }
+        return index.search(QueryTerm.parse(query), limit);
+    }
+
+    public void indexPost(Post post) {
+        Long ownerId = post.getUser() == null ? null : post.getUser().getId();
+        LocalDateTime updatedAt = post.getUpdatedAt() != null ? post.getUpdatedAt() : post.getCreatedAt();
+        record(SegmentOp.put(IndexedDoc.post(post.getId(), ownerId, updatedAt, post.getTitle(), post.getContent())));
+    }
+
+    public void indexComment(Comment comment) {
+        indexComment(comment.getId(), comment.getUser().getId(), comment.getPost().getId(),
+                comment.getUpdatedAt(), comment.getContent());
+    }
+
+    public void indexComment(long commentId, Long ownerId, Long postId, LocalDateTime updatedAt, String content) {
+        record(SegmentOp.put(IndexedDoc.comment(commentId, ownerId, postId, updatedAt, content)));
+    }
+
+    public void removeComment(Long commentId) {
+        record(SegmentOp.delete(new DocKey(DocType.COMMENT, commentId)));
+    }
+
+    public void removePost(Long postId) {
+        record(SegmentOp.delete(new DocKey(DocType.POST, postId)));
+        removeMatching(Set.of(postId), null);
+    }
+
+    public void removeOwner(Long userId) {
+        List<DocKey> posts = index.removeIf(doc -> doc.key().type() == DocType.POST && userId.equals(doc.ownerId()));
+        posts.forEach(key -> pending.add(SegmentOp.delete(key)));
+        removeMatching(posts.stream().map(DocKey::id).collect(Collectors.toSet()), userId);
+    }
+
+    private void removeMatching(Set<Long> postIds, Long ownerId) {
+        index.removeIf(doc -> doc.key().type() == DocType.COMMENT
+                        && (postIds.contains(doc.postId()) || (ownerId != null && ownerId.equals(doc.ownerId()))))
+                .forEach(key -> pending.add(SegmentOp.delete(key)));
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${myblog.search.flush-interval-ms:2000}")
+    public synchronized void flush() {
+        if (store == null) return;
+        List<SegmentOp> ops = new ArrayList<>();
+        for (SegmentOp op = pending.poll(); op != null; op = pending.poll()) {
+            ops.add(op);
+        }
+        try {
+            store.append(ops);
+            if (store.segments().size() > properties.maxSegments()) {
+                store.compact(index.snapshot());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить сегмент поискового индекса", e);
+        }
+    }
+
+    public synchronized void rebuild() throws IOException {
+        index.clear();
+        pending.clear();
+        stream("select id, user_id, " + POST_VERSION + ", title, content from posts where deleted_at is null",
+                rs -> index.put(IndexedDoc.post(rs.getLong("id"), nullableLong(rs, "user_id"),
+                        rs.getObject("version", LocalDateTime.class), rs.getString("title"), rs.getString("content"))));
+        stream("select c.id, c.user_id, c.post_id, " + COMMENT_VERSION + ", c.content " + LIVE_COMMENTS,
+                rs -> index.put(IndexedDoc.comment(rs.getLong("id"), nullableLong(rs, "user_id"),
+                        nullableLong(rs, "post_id"), rs.getObject("version", LocalDateTime.class),
+                        rs.getString("content"))));
+        store.compact(index.snapshot());
+    }
+
+    private boolean matchesDatabase() {
+        IndexStats stats = index.stats();
+        IndexStats actual = jdbcTemplate.queryForObject(
+                "select (select count(*) from posts where deleted_at is null),"
+                        + " (select count(*) " + LIVE_COMMENTS + "),"
+                        + " (select coalesce(max(id), 0) from posts where deleted_at is null),"
+                        + " (select coalesce(max(c.id), 0) " + LIVE_COMMENTS + ")",
+                (rs, rowNum) -> new IndexStats(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)));
+        return stats.equals(actual)
+                && versionsMatch(DocType.POST, "select id, " + POST_VERSION + " from posts where deleted_at is null")
+                && versionsMatch(DocType.COMMENT, "select c.id, " + COMMENT_VERSION + " " + LIVE_COMMENTS);
+    }
+
+    // количество и max id не замечают правок, сделанных мимо приложения, поэтому сверяем и updated_at каждого документа;
+    // тексты при этом не читаются
+    private boolean versionsMatch(DocType type, String sql) {
+        boolean[] matches = {true};
+        stream(sql, rs -> {
+            if (matches[0] && index.version(new DocKey(type, rs.getLong("id")))
+                    != IndexedDoc.versionOf(rs.getObject("version", LocalDateTime.class))) {
+                matches[0] = false;
+            }
+        });
+        return matches[0];
+    }
+
+    private void stream(String sql, RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(REINDEX_FETCH_SIZE);
+            return ps;
+        }, handler);
+    }
+
+    private void record(SegmentOp op) {
+        apply(op);
+        pending.add(op);
+    }
+
+    private void apply(SegmentOp op) {
+        if (op.isDelete()) {
+            index.remove(op.key());
+        } else {
+            index.put(op.doc());
+        }
+    }
+
+    private static Long nullableLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.kolidgio.myblog.search;
+
+public record SegmentOp(DocKey key, IndexedDoc doc) {
+
+    public static SegmentOp put(IndexedDoc doc) {
+        return new SegmentOp(doc.key(), doc);
+    }
+
+    public static SegmentOp delete(DocKey key) {
+        return new SegmentOp(key, null);
+    }
+
+    public boolean isDelete() {
+        return doc == null;
+    }
+}
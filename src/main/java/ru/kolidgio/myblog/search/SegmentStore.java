@@ -0,0 +1,134 @@
+package ru.kolidgio.myblog.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class SegmentStore {
+    private static final int MAGIC = 0x4D425358;
+    private static final int VERSION = 2;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path dir;
+    private long nextSegment;
+
+    public SegmentStore(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        List<Path> existing = segments();
+        nextSegment = existing.isEmpty() ? 1 : number(existing.get(existing.size() - 1)) + 1;
+    }
+
+    public List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                    .filter(p -> p.getFileName().toString().startsWith(PREFIX))
+                    .filter(p -> p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    // false - сегмент записан другой версией формата или анализатора, индекс нужно перестроить
+    public boolean replay(Consumer<SegmentOp> apply) throws IOException {
+        for (Path segment : segments()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Повреждённый сегмент индекса " + segment);
+                }
+                if (in.readInt() != VERSION) return false;
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    apply.accept(read(in));
+                }
+            }
+        }
+        return true;
+    }
+
+    public synchronized void append(Collection<SegmentOp> ops) throws IOException {
+        if (ops.isEmpty()) return;
+        write(ops);
+    }
+
+    public synchronized void compact(Collection<IndexedDoc> docs) throws IOException {
+        List<Path> obsolete = segments();
+        write(docs.stream().map(SegmentOp::put).toList());
+        for (Path segment : obsolete) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    public synchronized void reset() throws IOException {
+        for (Path segment : segments()) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    private void write(Collection<SegmentOp> ops) throws IOException {
+        Path target = dir.resolve(String.format("%s%012d%s", PREFIX, nextSegment++, SUFFIX));
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(ops.size());
+            for (SegmentOp op : ops) {
+                write(out, op);
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void write(DataOutputStream out, SegmentOp op) throws IOException {
+        out.writeByte(op.isDelete() ? OP_DELETE : OP_PUT);
+        out.writeByte(op.key().type().ordinal());
+        out.writeLong(op.key().id());
+        if (op.isDelete()) return;
+        IndexedDoc doc = op.doc();
+        out.writeLong(doc.ownerId() == null ? 0 : doc.ownerId());
+        out.writeLong(doc.postId() == null ? 0 : doc.postId());
+        out.writeLong(doc.version());
+        out.writeInt(doc.length());
+        out.writeInt(doc.terms().size());
+        for (Map.Entry<String, Integer> term : doc.terms().entrySet()) {
+            out.writeUTF(term.getKey());
+            out.writeInt(term.getValue());
+        }
+    }
+
+    private static SegmentOp read(DataInputStream in) throws IOException {
+        byte op = in.readByte();
+        DocKey key = new DocKey(DocType.values()[in.readByte()], in.readLong());
+        if (op == OP_DELETE) return SegmentOp.delete(key);
+        long ownerId = in.readLong();
+        long postId = in.readLong();
+        long version = in.readLong();
+        int length = in.readInt();
+        int termCount = in.readInt();
+        Map<String, Integer> terms = new HashMap<>(termCount * 2);
+        for (int i = 0; i < termCount; i++) {
+            terms.put(in.readUTF(), in.readInt());
+        }
+        return SegmentOp.put(new IndexedDoc(key, ownerId == 0 ? null : ownerId, postId == 0 ? null : postId,
+                version, terms, length));
+    }
+
+    private static long number(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,170 @@
+package ru.kolidgio.myblog.search;
+
+// Русский - упрощённый Snowball (Портер для русского), английский - шаги 1a-1c Портера.
+// Токены с цифрами и смешанным алфавитом не трогаем.
+final class Stemmer {
+    private static final String RU_VOWELS = "аеиоуыэюя";
+    private static final String EN_VOWELS = "aeiou";
+
+    private static final String[] PERFECTIVE_GERUND_1 = {"вшись", "вши", "в"};
+    private static final String[] PERFECTIVE_GERUND_2 = {"ившись", "ывшись", "ивши", "ывши", "ив", "ыв"};
+    private static final String[] REFLEXIVE = {"ся", "сь"};
+    private static final String[] ADJECTIVE = {
+            "ими", "ыми", "его", "ого", "ему", "ому",
+            "ее", "ие", "ые", "ое", "ей", "ий", "ый", "ой", "ем", "им", "ым", "ом",
+            "их", "ых", "ую", "юю", "ая", "яя", "ою", "ею"};
+    private static final String[] PARTICIPLE_1 = {"ем", "нн", "вш", "ющ", "щ"};
+    private static final String[] PARTICIPLE_2 = {"ивш", "ывш", "ующ"};
+    private static final String[] VERB_1 = {
+            "ете", "йте", "ешь", "нно", "ла", "на", "ли", "ем", "ло", "но", "ет", "ют", "ны", "ть", "й", "л", "н"};
+    private static final String[] VERB_2 = {
+            "ейте", "уйте", "ила", "ыла", "ена", "ите", "или", "ыли", "ило", "ыло", "ено", "ует", "уют",
+            "ены", "ить", "ыть", "ишь", "ей", "уй", "ил", "ыл", "им", "ым", "ен", "ят", "ит", "ыт", "ую", "ю"};
+    private static final String[] NOUN = {
+            "иями", "ями", "ами", "ией", "иям", "ием", "иях",
+            "ев", "ов", "ие", "ье", "еи", "ии", "ей", "ой", "ий", "ям", "ем", "ам", "ом", "ах", "ях",
+            "ию", "ью", "ия", "ья", "а", "е", "и", "й", "о", "у", "ы", "ь", "ю", "я"};
+    private static final String[] SUPERLATIVE = {"ейше", "ейш"};
+    private static final String[] DERIVATIONAL = {"ость", "ост"};
+
+    private Stemmer() {
+    }
+
+    static String stem(String token) {
+        if (isAlphabet(token, 'а', 'я')) return russian(token);
+        if (isAlphabet(token, 'a', 'z')) return english(token);
+        return token;
+    }
+
+    private static String russian(String word) {
+        int rv = afterFirstVowel(word, RU_VOWELS);
+        if (rv >= word.length()) return word;
+        int r2 = afterVowelConsonant(word, RU_VOWELS, afterVowelConsonant(word, RU_VOWELS, 0));
+        StringBuilder s = new StringBuilder(word);
+
+        if (!removeGrouped(s, rv, PERFECTIVE_GERUND_1, PERFECTIVE_GERUND_2)) {
+            removeLongest(s, rv, REFLEXIVE);
+            if (removeLongest(s, rv, ADJECTIVE)) {
+                removeGrouped(s, rv, PARTICIPLE_1, PARTICIPLE_2);
+            } else if (!removeGrouped(s, rv, VERB_1, VERB_2)) {
+                removeLongest(s, rv, NOUN);
+            }
+        }
+        removeLongest(s, rv, new String[]{"и"});
+        removeLongest(s, Math.max(rv, r2), DERIVATIONAL);
+        if (endsWith(s, rv, "нн")) {
+            s.setLength(s.length() - 1);
+        } else if (removeLongest(s, rv, SUPERLATIVE)) {
+            if (endsWith(s, rv, "нн")) s.setLength(s.length() - 1);
+        } else {
+            removeLongest(s, rv, new String[]{"ь"});
+        }
+        return s.toString();
+    }
+
+    private static String english(String word) {
+        if (word.length() <= 3) return word;
+        StringBuilder s = new StringBuilder(word);
+        // 1a: множественное число
+        if (endsWith(s, 0, "sses") || endsWith(s, 0, "ies")) {
+            s.setLength(s.length() - 2);
+        } else if (endsWith(s, 0, "s") && !endsWith(s, 0, "ss") && !endsWith(s, 0, "us")) {
+            s.setLength(s.length() - 1);
+        }
+        // 1b: -eed, -ed, -ing
+        if (endsWith(s, 0, "eed")) {
+            if (s.length() > 4) s.setLength(s.length() - 1);
+        } else if (stripIfVowelBefore(s, "ed") || stripIfVowelBefore(s, "ing")) {
+            if (endsWith(s, 0, "at") || endsWith(s, 0, "bl") || endsWith(s, 0, "iz")) {
+                s.append('e');
+            } else if (doubleConsonant(s) && "lsz".indexOf(s.charAt(s.length() - 1)) < 0) {
+                s.setLength(s.length() - 1);
+            }
+        }
+        // 1c: y -> i после гласной в основе
+        if (s.length() > 2 && s.charAt(s.length() - 1) == 'y' && hasVowel(s, s.length() - 1)) {
+            s.setCharAt(s.length() - 1, 'i');
+        }
+        return s.toString();
+    }
+
+    // окончания первой группы отрезаются, только если перед ними стоит а или я (сама буква остаётся)
+    private static boolean removeGrouped(StringBuilder s, int from, String[] afterAOrYa, String[] any) {
+        String best = null;
+        for (String ending : afterAOrYa) {
+            int start = s.length() - ending.length();
+            if (start - 1 >= from && endsWith(s, from, ending) && "ая".indexOf(s.charAt(start - 1)) >= 0
+                    && (best == null || ending.length() > best.length())) {
+                best = ending;
+            }
+        }
+        for (String ending : any) {
+            if (endsWith(s, from, ending) && (best == null || ending.length() > best.length())) best = ending;
+        }
+        if (best == null) return false;
+        s.setLength(s.length() - best.length());
+        return true;
+    }
+
+    private static boolean removeLongest(StringBuilder s, int from, String[] endings) {
+        String best = null;
+        for (String ending : endings) {
+            if (endsWith(s, from, ending) && (best == null || ending.length() > best.length())) best = ending;
+        }
+        if (best == null) return false;
+        s.setLength(s.length() - best.length());
+        return true;
+    }
+
+    private static boolean endsWith(CharSequence s, int from, String ending) {
+        int start = s.length() - ending.length();
+        if (start < from) return false;
+        for (int i = 0; i < ending.length(); i++) {
+            if (s.charAt(start + i) != ending.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean stripIfVowelBefore(StringBuilder s, String ending) {
+        if (!endsWith(s, 0, ending)) return false;
+        int stem = s.length() - ending.length();
+        if (stem < 2 || !hasVowel(s, stem)) return false;
+        s.setLength(stem);
+        return true;
+    }
+
+    private static boolean hasVowel(CharSequence s, int end) {
+        for (int i = 0; i < end; i++) {
+            if (EN_VOWELS.indexOf(s.charAt(i)) >= 0) return true;
+        }
+        return false;
+    }
+
+    private static boolean doubleConsonant(CharSequence s) {
+        int n = s.length();
+        return n >= 2 && s.charAt(n - 1) == s.charAt(n - 2) && EN_VOWELS.indexOf(s.charAt(n - 1)) < 0;
+    }
+
+    private static int afterFirstVowel(String word, String vowels) {
+        for (int i = 0; i < word.length(); i++) {
+            if (vowels.indexOf(word.charAt(i)) >= 0) return i + 1;
+        }
+        return word.length();
+    }
+
+    // начало региона R1/R2: позиция после первой согласной, идущей за гласной
+    private static int afterVowelConsonant(String word, String vowels, int from) {
+        for (int i = from + 1; i < word.length(); i++) {
+            if (vowels.indexOf(word.charAt(i)) < 0 && vowels.indexOf(word.charAt(i - 1)) >= 0) return i + 1;
+        }
+        return word.length();
+    }
+
+    private static boolean isAlphabet(String token, char first, char last) {
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c < first || c > last) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,54 @@
+package ru.kolidgio.myblog.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public final class Tokenizer {
+    private static final int MIN_LENGTH = 2;
+    private static final int MAX_LENGTH = 64;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "and", "for", "are", "but", "not", "you", "with", "this", "that", "was", "from",
+            "have", "has", "its", "into", "than", "then", "there", "their", "they", "what", "when",
+            "of", "to", "in", "is", "it", "on", "at", "as", "be", "by", "or", "an", "if", "so",
+            "и", "в", "во", "не", "что", "он", "на", "я", "с", "со", "как", "а", "то", "все", "она",
+            "так", "его", "но", "да", "ты", "к", "у", "же", "вы", "за", "бы", "по", "только", "ее",
+            "мне", "было", "вот", "от", "меня", "еще", "нет", "о", "из", "ему", "это", "для", "ли",
+            "или", "до", "они", "мы", "при", "без", "над", "под", "уже", "был", "была", "были"
+    );
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) return tokens;
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(normalize(c));
+            } else {
+                emit(current, tokens);
+            }
+        }
+        emit(current, tokens);
+        return tokens;
+    }
+
+    private static char normalize(char c) {
+        char lower = Character.toLowerCase(c);
+        return lower == 'ё' ? 'е' : lower;
+    }
+
+    private static void emit(StringBuilder current, List<String> tokens) {
+        if (current.length() >= MIN_LENGTH && current.length() <= MAX_LENGTH) {
+            String token = current.toString();
+            if (!STOP_WORDS.contains(token)) {
+                tokens.add(Stemmer.stem(token));
+            }
+        }
+        current.setLength(0);
+    }
+}
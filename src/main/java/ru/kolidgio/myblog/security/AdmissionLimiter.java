@@ -0,0 +1,33 @@
+package ru.kolidgio.myblog.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import ru.kolidgio.myblog.service.errors.TooManyRequestsException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class AdmissionLimiter {
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+    private static final long MAX_TRACKED_KEYS = 100_000;
+
+    private final int attemptsPerWindow;
+    private final Cache<String, AtomicInteger> attempts = Caffeine.newBuilder()
+            .expireAfterWrite(WINDOW)
+            .maximumSize(MAX_TRACKED_KEYS)
+            .build();
+
+    public AdmissionLimiter(PasswordHashingProperties properties) {
+        this.attemptsPerWindow = properties.attemptsPerMinute();
+    }
+
+    public void admit(String key) {
+        if (key == null) return;
+        int used = attempts.get(key, k -> new AtomicInteger()).incrementAndGet();
+        if (used > attemptsPerWindow) {
+            throw new TooManyRequestsException("Слишком много попыток, повторите позже");
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package ru.kolidgio.myblog.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.kolidgio.myblog.service.errors.BadRequestException;
+import ru.kolidgio.myblog.service.errors.TooManyRequestsException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Component
+public class PasswordHasher {
+    // BCrypt учитывает только первые 72 байта пароля
+    private static final int MAX_PASSWORD_BYTES = 72;
+
+    private final PasswordEncoder passwordEncoder;
+    private final AdmissionLimiter admissionLimiter;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Timer queueTimer;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, AdmissionLimiter admissionLimiter,
+                          PasswordHashingProperties properties, MeterRegistry registry) {
+        this.passwordEncoder = passwordEncoder;
+        this.admissionLimiter = admissionLimiter;
+        this.timeout = properties.timeout();
+        this.executor = new ThreadPoolExecutor(
+                properties.threads(), properties.threads(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.queueCapacity()),
+                Thread.ofPlatform().name("password-hasher-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.encodeTimer = hashTimer("encode", registry);
+        this.matchTimer = hashTimer("matches", registry);
+        this.queueTimer = Timer.builder("myblog.password.queue.wait")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("myblog.password.queue.size", executor, e -> e.getQueue().size())
+                .register(registry);
+    }
+
+    public String encode(String rawPassword, String subject) {
+        requireHashable(rawPassword);
+        admit(subject);
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    // для пароля, уже проверенного через matches в той же попытке: лимит попыток второй раз не списываем
+    public String encodeVerified(String rawPassword) {
+        requireHashable(rawPassword);
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword, String subject) {
+        admit(subject);
+        return submit(matchTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public boolean needsUpgrade(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private void admit(String subject) {
+        admissionLimiter.admit(subject == null ? null : "subject:" + subject);
+        admissionLimiter.admit(clientAddress());
+    }
+
+    private static void requireHashable(String rawPassword) {
+        if (rawPassword == null) throw new BadRequestException("Пароль не должен быть null");
+        if (rawPassword.getBytes(StandardCharsets.UTF_8).length > MAX_PASSWORD_BYTES) {
+            throw new BadRequestException("Пароль не должен быть длиннее " + MAX_PASSWORD_BYTES + " байт");
+        }
+    }
+
+    // BCrypt не реагирует на interrupt, поэтому хеш, который не успеет к дедлайну, не запускаем вовсе
+    private <T> T submit(Timer timer, Callable<T> task) {
+        long queuedAt = System.nanoTime();
+        long deadline = queuedAt + timeout.toNanos();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueTimer.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+                if (startedAt + (long) timer.mean(TimeUnit.NANOSECONDS) > deadline) {
+                    throw new TooManyRequestsException("Сервис перегружен, повторите позже");
+                }
+                return timer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Сервис перегружен, повторите позже");
+        }
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            abandon(future);
+            throw new TooManyRequestsException("Сервис перегружен, повторите позже");
+        } catch (InterruptedException e) {
+            abandon(future);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Хеширование пароля прервано", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Не удалось вычислить хеш пароля", e.getCause());
+        }
+    }
+
+    // отменённая задача иначе занимает место в очереди, пока до неё не дойдёт поток
+    private void abandon(Future<?> future) {
+        future.cancel(true);
+        if (future instanceof Runnable runnable) executor.remove(runnable);
+    }
+
+    private static Timer hashTimer(String operation, MeterRegistry registry) {
+        return Timer.builder("myblog.password.hash")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static String clientAddress() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            return "ip:" + servlet.getRequest().getRemoteAddr();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,15 @@
+package ru.kolidgio.myblog.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "myblog.password")
+public record PasswordHashingProperties(
+        int strength,
+        int threads,
+        int queueCapacity,
+        Duration timeout,
+        int attemptsPerMinute
+) {
+}
@@ -1,32 +1,68 @@
 package ru.kolidgio.myblog.service;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
+import ru.kolidgio.myblog.concurrency.DbBulkhead;
+import ru.kolidgio.myblog.config.cache.CacheNames;
+import ru.kolidgio.myblog.dto.comment.CommentView;
 import ru.kolidgio.myblog.dto.comment.CreateCommentDto;
 import ru.kolidgio.myblog.dto.comment.UpdateCommentDto;
 import ru.kolidgio.myblog.model.Comment;
-import ru.kolidgio.myblog.model.Post;
-import ru.kolidgio.myblog.model.User;
 import ru.kolidgio.myblog.repository.CommentRepository;
 import ru.kolidgio.myblog.repository.PostRepository;
 import ru.kolidgio.myblog.repository.UserRepository;
+import ru.kolidgio.myblog.search.SearchService;
 import ru.kolidgio.myblog.service.errors.BadRequestException;
 import ru.kolidgio.myblog.service.errors.ConflictException;
 import ru.kolidgio.myblog.service.errors.NotFoundException;
+import ru.kolidgio.myblog.service.events.CommentAdded;
+import ru.kolidgio.myblog.service.events.DomainEventOutbox;
+import ru.kolidgio.myblog.service.presence.IdPresenceIndex;
+import ru.kolidgio.myblog.service.paging.CursorSlice;
+import ru.kolidgio.myblog.service.paging.FeedCursor;
+import ru.kolidgio.myblog.service.support.AfterCommit;
+import ru.kolidgio.myblog.service.support.SequenceBlockAllocator;
+import ru.kolidgio.myblog.service.validation.ReadValidators;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.regex.Pattern;
 
 @Validated
 @Service
+@Timed(value = "myblog.service", histogram = true)
+@DbBulkhead("comments")
 @RequiredArgsConstructor
 public class CommentService {
+    private static final String THREAD_END = "A";
+    private static final Pattern THREAD_CURSOR = Pattern.compile("(\\d{" + Comment.PATH_SEGMENT + "}){1,"
+            + (Comment.MAX_DEPTH + 1) + "}");
+    private static final String INSERT_COMMENT = """
+            insert into comments(id, user_id, post_id, parent_id, path, depth, content, created_at, updated_at)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
     private final CommentRepository commentRepository;
     private final UserRepository userRepository;
     private final PostRepository postRepository;
+    private final SearchService searchService;
+    private final IdPresenceIndex idPresence;
+    private final ReadValidators readValidators;
+    private final DomainEventOutbox domainEvents;
+    private final SequenceBlockAllocator commentIds;
+    private final JdbcTemplate jdbcTemplate;
 
     @Transactional(readOnly = true)
     public Comment getOrThrow(Long commentId) {
@@ -36,44 +72,71 @@ public class CommentService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = {CacheNames.COMMENT_FEED, CacheNames.POST_FEED}, allEntries = true)
     public Comment create(Long postId, @Valid CreateCommentDto dto) {
         requireId(dto.userId(), "userId");
         requireId(postId, "postId");
-        User user = userRepository.findById(dto.userId())
-                .orElseThrow(() -> new NotFoundException("User с id " + dto.userId() + " не найден"));
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new NotFoundException("Post с id " + postId + " не найден"));
+        idPresence.requireUser(dto.userId());
+        idPresence.requirePost(postId);
+        Comment parent = dto.parentId() == null ? null : replyTarget(postId, dto.parentId());
         Comment comment = new Comment();
-        comment.setUser(user);
-        comment.setPost(post);
+        // путь содержит собственный id, а path, depth и parent_id не обновляются после persist,
+        // поэтому id берём из comments_seq заранее и вставляем строку целиком
+        comment.setId(commentIds.next());
+        comment.setUser(userRepository.getReferenceById(dto.userId()));
+        comment.setPost(postRepository.getReferenceById(postId));
         comment.setContent(dto.content().trim());
+        comment.placeUnder(parent);
+        LocalDateTime now = LocalDateTime.now();
+        comment.setCreatedAt(now);
+        comment.setUpdatedAt(now);
         try {
-            return commentRepository.save(comment);
+            jdbcTemplate.update(INSERT_COMMENT, comment.getId(), dto.userId(), postId, comment.getParentId(),
+                    comment.getPath(), comment.getDepth(), comment.getContent(),
+                    Timestamp.valueOf(now), Timestamp.valueOf(now));
+            if (parent != null) commentRepository.addReplies(parent.getId(), 1);
+            domainEvents.publish(new CommentAdded(comment.getId(), postId, dto.userId()));
+            AfterCommit.run(() -> readValidators.commentsChanged(postId));
+            return comment;
         } catch (DataIntegrityViolationException e) {
             throw new ConflictException("Не удалось создать комментарий из-за ограничения БД", e);
         }
     }
 
     @Transactional
+    @CacheEvict(cacheNames = {CacheNames.COMMENT_FEED, CacheNames.POST_FEED}, allEntries = true)
     public void delete(Long commentId) {
         requireId(commentId, "commentId");
-        if (!commentRepository.existsById(commentId)) {
-            throw new NotFoundException("Comment с id " + commentId + " не найден");
-        }
+        Comment comment = getOrThrow(commentId);
+        Long postId = comment.getPost().getId();
+        // ответы удаляются каскадом в БД, их id нужны для поискового индекса
+        List<Long> subtree = commentRepository.findIdsInRange(postId, comment.getPath(),
+                Comment.pathUpperBound(comment.getPath()));
         try {
-            commentRepository.deleteById(commentId);
+            commentRepository.delete(comment);
+            if (comment.getParentId() != null) commentRepository.addReplies(comment.getParentId(), -1);
         } catch (DataIntegrityViolationException e) {
             throw new ConflictException("Не удалось удалить комментарий из-за ограничения БД", e);
 
         }
+        AfterCommit.run(() -> {
+            subtree.forEach(searchService::removeComment);
+            readValidators.commentsChanged(postId);
+        });
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheNames.COMMENT_FEED, allEntries = true)
     public Comment update(Long commentId, @Valid UpdateCommentDto dto) {
         Comment comment = getOrThrow(commentId);
         comment.setContent(dto.content().trim());
         try {
-            return commentRepository.save(comment);
+            Comment saved = commentRepository.save(comment);
+            AfterCommit.run(() -> {
+                searchService.indexComment(saved);
+                readValidators.commentsChanged(saved.getPost().getId());
+            });
+            return saved;
         } catch (DataIntegrityViolationException e) {
             throw new ConflictException("Не удалось обновить комментарий из-за ограничения БД", e);
 
@@ -83,9 +146,7 @@ public class CommentService {
     @Transactional(readOnly = true)
     public Page<Comment> feed(Long postId, Pageable pageable) {
         requireId(postId, "postId");
-        if (!postRepository.existsById(postId)) {
-            throw new NotFoundException("Post с id " + postId + " не найден");
-        }
+        idPresence.requirePost(postId);
         if (pageable == null) {
             throw new BadRequestException("Pageable не должен быть null");
         }
@@ -94,6 +155,70 @@ public class CommentService {
 
 
     }
+
+    // в кэш кладём CommentView, а не сущности: User внутри комментария тянет за собой хэш пароля
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheNames.COMMENT_FEED, key = "#postId + ':' + #size",
+            condition = "#postId != null && #cursor == null")
+    public CursorSlice<CommentView> feed(Long postId, String cursor, int size) {
+        requireId(postId, "postId");
+        FeedCursor after = FeedCursor.decode(cursor);
+        Pageable limit = FeedCursor.limit(size);
+        idPresence.requirePost(postId);
+        Slice<Comment> slice = after == null
+                ? commentRepository.findFeed(postId, limit)
+                : commentRepository.findFeedAfter(postId, after.createdAt(), after.id(), limit);
+        return CursorSlice.of(slice.map(CommentView::from), c -> new FeedCursor(c.createdAt(), c.id()));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorSlice<Comment> thread(Long postId, Long rootId, String cursor, int size, int depth) {
+        requireId(postId, "postId");
+        if (depth < 0 || depth > Comment.MAX_DEPTH) {
+            throw new BadRequestException("depth должен быть от 0 до " + Comment.MAX_DEPTH);
+        }
+        Pageable limit = FeedCursor.limit(size);
+        idPresence.requirePost(postId);
+        String from = "";
+        String to = THREAD_END;
+        int maxDepth = depth;
+        if (rootId != null) {
+            Comment root = getOrThrow(rootId);
+            if (!root.getPost().getId().equals(postId)) {
+                throw new NotFoundException("Comment с id " + rootId + " не найден в посте " + postId);
+            }
+            from = root.getPath();
+            to = Comment.pathUpperBound(from);
+            maxDepth = root.getDepth() + depth;
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            if (!THREAD_CURSOR.matcher(cursor).matches()) throw new BadRequestException("Некорректный курсор");
+            // любой путь, который идёт в обходе после курсора, не меньше cursor + "0"
+            String after = cursor + "0";
+            if (after.compareTo(from) > 0) from = after;
+        }
+        Slice<Comment> slice = commentRepository.findThread(postId, from, to, maxDepth, limit);
+        String next = slice.hasNext() && slice.hasContent()
+                ? slice.getContent().get(slice.getNumberOfElements() - 1).getPath()
+                : null;
+        return new CursorSlice<>(slice, next);
+    }
+
+    private Comment replyTarget(Long postId, Long parentId) {
+        requireId(parentId, "parentId");
+        Comment parent = commentRepository.findById(parentId)
+                .orElseThrow(() -> new NotFoundException("Comment с id " + parentId + " не найден"));
+        if (!parent.getPost().getId().equals(postId)) {
+            throw new BadRequestException("Ответ должен относиться к тому же посту, что и комментарий " + parentId);
+        }
+        // глубже MAX_DEPTH ветка не растёт: ответ встаёт рядом с родителем
+        if (parent.getDepth() >= Comment.MAX_DEPTH) {
+            return commentRepository.findById(parent.getParentId()).orElseThrow(
+                    () -> new NotFoundException("Comment с id " + parent.getParentId() + " не найден"));
+        }
+        return parent;
+    }
+
     private static void requireId(Long id, String field) {
         if (id == null) throw new BadRequestException(field + " не должен быть null");
         if (id <= 0) throw new BadRequestException(field + " должен быть > 0");
@@ -0,0 +1,74 @@
+package ru.kolidgio.myblog.service;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kolidgio.myblog.concurrency.DbBulkhead;
+import ru.kolidgio.myblog.model.Follow;
+import ru.kolidgio.myblog.repository.FollowRepository;
+import ru.kolidgio.myblog.repository.UserRepository;
+import ru.kolidgio.myblog.service.errors.BadRequestException;
+import ru.kolidgio.myblog.service.errors.ConflictException;
+import ru.kolidgio.myblog.service.presence.IdPresenceIndex;
+import ru.kolidgio.myblog.service.support.AfterCommit;
+import ru.kolidgio.myblog.service.timeline.HomeTimelineStore;
+
+@Service
+@Timed(value = "myblog.service", histogram = true)
+@DbBulkhead("follows")
+@RequiredArgsConstructor
+public class FollowService {
+    private final FollowRepository followRepository;
+    private final UserRepository userRepository;
+    private final HomeTimelineStore homeTimelines;
+    private final IdPresenceIndex idPresence;
+
+    @Transactional
+    public void follow(Long followerId, Long followeeId) {
+        requireIds(followerId, followeeId);
+        if (followRepository.existsByFollower_IdAndFollowee_Id(followerId, followeeId)) {
+            return;
+        }
+        Follow follow = new Follow();
+        follow.setFollower(userRepository.getReferenceById(followerId));
+        follow.setFollowee(userRepository.getReferenceById(followeeId));
+        try {
+            followRepository.saveAndFlush(follow);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Не удалось оформить подписку из-за ограничения БД", e);
+        }
+        AfterCommit.run(() -> homeTimelines.invalidate(followerId));
+    }
+
+    @Transactional
+    public void unfollow(Long followerId, Long followeeId) {
+        requireIds(followerId, followeeId);
+        if (followRepository.deleteFollow(followerId, followeeId) > 0) {
+            AfterCommit.run(() -> homeTimelines.invalidate(followerId));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long followersCount(Long userId) {
+        requireId(userId, "userId");
+        idPresence.requireUser(userId);
+        return followRepository.countByFollowee_Id(userId);
+    }
+
+    private void requireIds(Long followerId, Long followeeId) {
+        requireId(followerId, "followerId");
+        requireId(followeeId, "followeeId");
+        if (followerId.equals(followeeId)) {
+            throw new BadRequestException("Нельзя подписаться на самого себя");
+        }
+        idPresence.requireUser(followerId);
+        idPresence.requireUser(followeeId);
+    }
+
+    private static void requireId(Long id, String field) {
+        if (id == null) throw new BadRequestException(field + " не должен быть null");
+        if (id <= 0) throw new BadRequestException(field + " должен быть > 0");
+    }
+}
@@ -1,56 +1,195 @@
 package ru.kolidgio.myblog.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.kolidgio.myblog.concurrency.DbBulkhead;
+import ru.kolidgio.myblog.dto.like.BulkLikeDto;
+import ru.kolidgio.myblog.dto.like.LikeStateDto;
+import ru.kolidgio.myblog.dto.like.LikeStateResult;
 import ru.kolidgio.myblog.model.Like;
+import ru.kolidgio.myblog.repository.FollowRepository;
 import ru.kolidgio.myblog.repository.LikeRepository;
 import ru.kolidgio.myblog.repository.PostRepository;
 import ru.kolidgio.myblog.repository.UserRepository;
+import ru.kolidgio.myblog.repository.projection.IdCount;
+import ru.kolidgio.myblog.service.counter.LikeCounterBuffer;
 import ru.kolidgio.myblog.service.errors.BadRequestException;
 import ru.kolidgio.myblog.service.errors.ConflictException;
 import ru.kolidgio.myblog.service.errors.NotFoundException;
+import ru.kolidgio.myblog.service.events.DomainEventOutbox;
+import ru.kolidgio.myblog.service.events.LikeToggled;
+import ru.kolidgio.myblog.service.presence.IdPresenceIndex;
+import ru.kolidgio.myblog.service.presence.LikeIndex;
+import ru.kolidgio.myblog.service.support.AfterCommit;
+import ru.kolidgio.myblog.service.support.CompactIdSet;
+import ru.kolidgio.myblog.service.validation.ReadValidators;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "myblog.service", histogram = true)
+@DbBulkhead("likes")
 @RequiredArgsConstructor
 public class LikeService {
+    private static final int MAX_BULK_LIKES = 200;
+    private static final String INSERT_LIKE =
+            "insert into likes(user_id, post_id) values (?, ?) on conflict do nothing";
+    private static final String DELETE_LIKE = "delete from likes where user_id = ? and post_id = ?";
+    private static final String LOCK_USER = "select id from users where id = ? and deleted_at is null for update";
+
     private final LikeRepository likeRepository;
     private final UserRepository userRepository;
     private final PostRepository postRepository;
+    private final LikeCounterBuffer likeCounterBuffer;
+    private final IdPresenceIndex idPresence;
+    private final LikeIndex likeIndex;
+    private final FollowRepository followRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DomainEventOutbox domainEvents;
+    private final ReadValidators readValidators;
 
     @Transactional
     public Long toggle(Long postId, Long userId) {
         requireId(postId, "postId");
         requireId(userId, "userId");
-        if (!userRepository.existsById(userId)) {
-            throw new NotFoundException("User с id " + userId + " не найден");
-        }
-        if (!postRepository.existsById(postId)) {
-            throw new NotFoundException("Post с id " + postId + " не найден");
-        }
+        idPresence.requireUser(userId);
+        idPresence.requirePost(postId);
+        lockUser(userId);
 
+        long delta;
         try {
             if (!likeRepository.existsByPost_IdAndUser_Id(postId, userId)) {
                 Like like = new Like();
                 like.setPost(postRepository.getReferenceById(postId));
                 like.setUser(userRepository.getReferenceById(userId));
                 likeRepository.save(like);
+                delta = 1;
             } else {
                 likeRepository.deleteByPost_IdAndUser_Id(postId, userId);
+                delta = -1;
             }
-            return likeRepository.countByPost_Id(postId);
         } catch (DataIntegrityViolationException e) {
             throw new ConflictException("Не удалось изменить лайк из-за ограничения БД", e);
         }
+        likeCounterBuffer.add(postId, delta);
+        domainEvents.publish(new LikeToggled(postId, userId, delta));
+        AfterCommit.run(() -> likesCommitted(postId, userId, delta));
+        // своя дельта попадёт в буфер только после коммита
+        return count(postId) + delta;
+    }
+
+    // идемпотентная установка состояния: повтор запроса ничего не меняет, в отличие от toggle
+    @Transactional
+    public List<LikeStateResult> setLikes(BulkLikeDto dto) {
+        if (dto == null || dto.likes() == null || dto.likes().isEmpty()) {
+            throw new BadRequestException("Список лайков не должен быть пустым");
+        }
+        if (dto.likes().size() > MAX_BULK_LIKES) {
+            throw new BadRequestException("Не больше " + MAX_BULK_LIKES + " лайков за запрос");
+        }
+        Long userId = dto.userId();
+        requireId(userId, "userId");
+        Map<Long, Boolean> desired = new TreeMap<>();
+        for (LikeStateDto like : dto.likes()) {
+            if (like == null || like.liked() == null) throw new BadRequestException("liked не должен быть null");
+            requireId(like.postId(), "postId");
+            desired.put(like.postId(), like.liked());
+        }
+        idPresence.requireUser(userId);
+        idPresence.requirePosts(desired.keySet());
+        lockUser(userId);
+
+        // под блокировкой пользователя состояние его лайков не меняется, поэтому дельты известны заранее
+        Set<Long> current = new HashSet<>(likeRepository.findLikedPostIds(userId, desired.keySet()));
+        List<Long> toLike = new ArrayList<>();
+        List<Long> toUnlike = new ArrayList<>();
+        desired.forEach((postId, liked) -> {
+            if (liked && !current.contains(postId)) toLike.add(postId);
+            if (!liked && current.contains(postId)) toUnlike.add(postId);
+        });
+        Map<Long, Long> deltas = new HashMap<>();
+        toLike.forEach(postId -> deltas.put(postId, 1L));
+        toUnlike.forEach(postId -> deltas.put(postId, -1L));
+        try {
+            apply(INSERT_LIKE, userId, toLike);
+            apply(DELETE_LIKE, userId, toUnlike);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Не удалось изменить лайки из-за ограничения БД", e);
+        }
+        Map<Long, Long> counts = likeCounterBuffer.counts(desired.keySet(), () ->
+                postRepository.findLikesCountsByIds(desired.keySet()).stream()
+                        .collect(Collectors.toMap(IdCount::id, IdCount::count)));
+        likeCounterBuffer.addAll(deltas);
+        deltas.forEach((postId, delta) -> domainEvents.publish(new LikeToggled(postId, userId, delta)));
+        AfterCommit.run(() -> deltas.forEach((postId, delta) -> likesCommitted(postId, userId, delta)));
+        return desired.entrySet().stream()
+                .map(e -> new LikeStateResult(e.getKey(), e.getValue(),
+                        counts.getOrDefault(e.getKey(), 0L) + deltas.getOrDefault(e.getKey(), 0L)))
+                .toList();
+    }
+
+    public boolean isLiked(Long postId, Long userId) {
+        requireId(postId, "postId");
+        requireId(userId, "userId");
+        if (likeIndex.isReady()) return likeIndex.isLiked(postId, userId);
+        return likeRepository.existsByPost_IdAndUser_Id(postId, userId);
+    }
 
+    public long[] likedByBoth(Long userA, Long userB) {
+        requireId(userA, "userA");
+        requireId(userB, "userB");
+        idPresence.requireUser(userA);
+        idPresence.requireUser(userB);
+        return likeIndex.likedByBoth(userA, userB);
+    }
 
+    @Transactional(readOnly = true)
+    public long[] followeesWhoLiked(Long postId, Long viewerId) {
+        requireId(postId, "postId");
+        requireId(viewerId, "viewerId");
+        idPresence.requirePost(postId);
+        CompactIdSet followees = new CompactIdSet();
+        followRepository.findFolloweeIds(viewerId).forEach(followees::add);
+        return likeIndex.likersAmong(postId, followees);
     }
 
     @Transactional(readOnly = true)
     public long count(Long postId) {
         requireId(postId, "postId");
-        return likeRepository.countByPost_Id(postId);
+        return likeCounterBuffer.count(postId, () -> postRepository.findLikesCountById(postId)
+                .orElseThrow(() -> new NotFoundException("Post с id " + postId + " не найден")));
+    }
+
+    // likedByMe в ленте читается из LikeIndex: обновляем его до новой отметки валидатора,
+    // иначе клиент получит новый ETag вместе со старым состоянием лайка
+    private void likesCommitted(long postId, long userId, long delta) {
+        if (delta > 0) likeIndex.liked(postId, userId);
+        else likeIndex.unliked(postId, userId);
+        readValidators.likesChanged(postId);
+    }
+
+    // счётчики батча не используем: с reWriteBatchedInserts PostgreSQL возвращает SUCCESS_NO_INFO
+    private void apply(String sql, long userId, List<Long> postIds) {
+        if (postIds.isEmpty()) return;
+        jdbcTemplate.batchUpdate(sql, postIds.stream().map(postId -> new Object[]{userId, postId}).toList());
+    }
+
+    // лайки одного пользователя меняются последовательно; строка поста не блокируется
+    private void lockUser(long userId) {
+        if (jdbcTemplate.queryForList(LOCK_USER, Long.class, userId).isEmpty()) {
+            throw new NotFoundException("User с id " + userId + " не найден");
+        }
     }
 
     private static void requireId(Long id, String field) {
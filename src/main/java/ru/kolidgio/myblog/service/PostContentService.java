@@ -0,0 +1,58 @@
+package ru.kolidgio.myblog.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import ru.kolidgio.myblog.concurrency.DbBulkhead;
+import ru.kolidgio.myblog.service.errors.BadRequestException;
+import ru.kolidgio.myblog.service.errors.ConflictException;
+import ru.kolidgio.myblog.service.errors.NotFoundException;
+import ru.kolidgio.myblog.service.presence.IdPresenceIndex;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Service
+@DbBulkhead("posts")
+@RequiredArgsConstructor
+public class PostContentService {
+    private static final int CHUNK_SIZE = 32 * 1024;
+    private static final String READ_CHUNK = """
+            select substring(content, ?, ?) as part, coalesce(updated_at, created_at) as version
+            from posts where id = ? and deleted_at is null
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdPresenceIndex idPresence;
+
+    // каждый кусок читается отдельным коротким запросом: соединение и разрешение bulkhead
+    // не удерживаются, пока медленный клиент забирает ответ
+    public Chunk readChunk(Long postId, long offset, Timestamp version) {
+        requireId(postId);
+        if (offset == 0) idPresence.requirePost(postId);
+        List<Chunk> found = jdbcTemplate.query(READ_CHUNK,
+                (rs, i) -> new Chunk(rs.getString("part"), rs.getTimestamp("version")),
+                offset + 1, CHUNK_SIZE, postId);
+        if (found.isEmpty()) throw new NotFoundException("Post с id " + postId + " не найден");
+        Chunk chunk = found.get(0);
+        if (version != null && !version.equals(chunk.version())) {
+            throw new ConflictException("Post с id " + postId + " изменился во время чтения");
+        }
+        return chunk;
+    }
+
+    public record Chunk(String text, Timestamp version) {
+        public Chunk {
+            if (text == null) text = "";
+        }
+
+        public boolean last() {
+            return text.length() < CHUNK_SIZE;
+        }
+    }
+
+    private static void requireId(Long postId) {
+        if (postId == null) throw new BadRequestException("postId не должен быть null");
+        if (postId <= 0) throw new BadRequestException("postId должен быть > 0");
+    }
+}
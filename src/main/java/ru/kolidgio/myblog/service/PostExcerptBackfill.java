@@ -0,0 +1,44 @@
+package ru.kolidgio.myblog.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.kolidgio.myblog.bulk.BulkEntity;
+import ru.kolidgio.myblog.bulk.BulkImportCompleted;
+import ru.kolidgio.myblog.model.Post;
+
+import java.util.List;
+
+// Посты, вставленные мимо JPA (data.sql, импорт), получают excerpt тем же Post.excerptOf, что и через сущность
+@Component
+@RequiredArgsConstructor
+public class PostExcerptBackfill {
+    private static final int BATCH_SIZE = 500;
+    // excerptOf смотрит не дальше 2 * EXCERPT_LENGTH символов; ещё один нужен, чтобы понять, что текст длиннее
+    private static final String NEXT_BATCH = """
+            select id, substring(content, 1, %d) as head from posts
+            where excerpt is null and id > ? order by id limit %d
+            """.formatted(Post.EXCERPT_LENGTH * 2 + 1, BATCH_SIZE);
+    private static final String SET_EXCERPT = "update posts set excerpt = ? where id = ? and excerpt is null";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long lastId = 0;
+        while (true) {
+            List<Object[]> batch = jdbcTemplate.query(NEXT_BATCH,
+                    (rs, i) -> new Object[]{Post.excerptOf(rs.getString("head")), rs.getLong("id")}, lastId);
+            if (batch.isEmpty()) return;
+            jdbcTemplate.batchUpdate(SET_EXCERPT, batch);
+            lastId = (Long) batch.get(batch.size() - 1)[1];
+        }
+    }
+
+    @EventListener
+    public void onBulkImport(BulkImportCompleted event) {
+        if (event.entity() == BulkEntity.POSTS) backfill();
+    }
+}
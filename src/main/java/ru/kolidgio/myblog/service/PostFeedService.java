@@ -0,0 +1,194 @@
+package ru.kolidgio.myblog.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kolidgio.myblog.config.cache.CacheNames;
+import ru.kolidgio.myblog.dto.post.PostFeedItem;
+import ru.kolidgio.myblog.media.MediaRef;
+import ru.kolidgio.myblog.repository.CommentRepository;
+import ru.kolidgio.myblog.repository.LikeRepository;
+import ru.kolidgio.myblog.repository.PostRepository;
+import ru.kolidgio.myblog.repository.projection.IdCount;
+import ru.kolidgio.myblog.repository.projection.PostHeader;
+import ru.kolidgio.myblog.service.counter.LikeCounterBuffer;
+import ru.kolidgio.myblog.service.errors.BadRequestException;
+import ru.kolidgio.myblog.service.errors.NotFoundException;
+import ru.kolidgio.myblog.service.presence.IdPresenceIndex;
+import ru.kolidgio.myblog.service.paging.CursorSlice;
+import ru.kolidgio.myblog.service.paging.FeedCursor;
+import ru.kolidgio.myblog.service.presence.LikeIndex;
+import ru.kolidgio.myblog.service.timeline.HomeTimeline;
+import ru.kolidgio.myblog.service.timeline.HomeTimelineStore;
+import ru.kolidgio.myblog.service.trending.TrendingIndex;
+import ru.kolidgio.myblog.service.trending.TrendingPost;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class PostFeedService {
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final LikeRepository likeRepository;
+    private final LikeCounterBuffer likeCounterBuffer;
+    private final CacheManager cacheManager;
+    private final TrendingIndex trendingIndex;
+    private final HomeTimelineStore homeTimelines;
+    private final LikeIndex likeIndex;
+    private final IdPresenceIndex idPresence;
+
+    @Transactional(readOnly = true)
+    public CursorSlice<PostFeedItem> feed(String cursor, int size, Long viewerId) {
+        requireViewer(viewerId);
+        FeedCursor after = FeedCursor.decode(cursor);
+        Pageable limit = FeedCursor.limit(size);
+        FeedPage page = after == null
+                ? firstPage("all:" + size, () -> postRepository.findHeaders(limit))
+                : load(postRepository.findHeadersAfter(after.createdAt(), after.id(), limit));
+        return hydrate(page, viewerId);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorSlice<PostFeedItem> feedByUser(Long userId, String cursor, int size, Long viewerId) {
+        requireId(userId, "userId");
+        requireViewer(viewerId);
+        FeedCursor after = FeedCursor.decode(cursor);
+        Pageable limit = FeedCursor.limit(size);
+        idPresence.requireUser(userId);
+        FeedPage page = after == null
+                ? firstPage("user:" + userId + ":" + size, () -> postRepository.findHeadersByUser(userId, limit))
+                : load(postRepository.findHeadersByUserAfter(userId, after.createdAt(), after.id(), limit));
+        return hydrate(page, viewerId);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorSlice<PostFeedItem> home(Long userId, String cursor, int size) {
+        requireId(userId, "userId");
+        FeedCursor after = FeedCursor.decode(cursor);
+        long beforeId = after == null ? Long.MAX_VALUE : after.id();
+        Pageable limit = FeedCursor.limit(size);
+        idPresence.requireUser(userId);
+        HomeTimeline timeline = homeTimelines.get(userId);
+        TreeSet<Long> ids = new TreeSet<>(Comparator.reverseOrder());
+        for (long id : timeline.buffer().before(beforeId, size + 1)) {
+            ids.add(id);
+        }
+        if (timeline.celebrityFolloweeIds().length > 0) {
+            List<Long> celebrities = Arrays.stream(timeline.celebrityFolloweeIds()).boxed().toList();
+            ids.addAll(postRepository.findIdsByAuthorsBefore(celebrities, beforeId, PageRequest.of(0, size + 1)));
+        }
+        List<Long> page = ids.stream().limit(size).toList();
+        boolean hasNext = ids.size() > size;
+        if (page.isEmpty()) {
+            return new CursorSlice<>(new SliceImpl<>(List.of()), null);
+        }
+        Map<Long, PostHeader> headers = postRepository.findHeadersByIds(page).stream()
+                .collect(Collectors.toMap(PostHeader::id, Function.identity()));
+        List<PostHeader> ordered = page.stream().map(headers::get).filter(Objects::nonNull).toList();
+        Slice<PostFeedItem> items = hydrate(load(new SliceImpl<>(ordered)), userId).slice();
+        // лента упорядочена по id; дата в курсоре нужна только для единого формата с остальными лентами
+        PostFeedItem last = items.isEmpty() ? null : items.getContent().get(items.getNumberOfElements() - 1);
+        return new CursorSlice<>(new SliceImpl<>(items.getContent(), limit, hasNext),
+                hasNext && last != null ? new FeedCursor(last.createdAt(), page.get(page.size() - 1)).encode() : null);
+    }
+
+    @Transactional(readOnly = true)
+    public PostFeedItem item(Long postId, Long viewerId) {
+        requireId(postId, "postId");
+        requireViewer(viewerId);
+        idPresence.requirePost(postId);
+        List<PostHeader> headers = postRepository.findHeadersByIds(List.of(postId));
+        if (headers.isEmpty()) throw new NotFoundException("Post с id " + postId + " не найден");
+        return hydrate(load(new SliceImpl<>(headers)), viewerId).slice().getContent().get(0);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PostFeedItem> trending(int limit, Long viewerId) {
+        requireViewer(viewerId);
+        if (limit <= 0 || limit > FeedCursor.MAX_SIZE) {
+            throw new BadRequestException("limit должен быть от 1 до " + FeedCursor.MAX_SIZE);
+        }
+        List<Long> ranked = trendingIndex.top(limit).stream().map(TrendingPost::postId).toList();
+        if (ranked.isEmpty()) return List.of();
+        Map<Long, PostHeader> headers = postRepository.findHeadersByIds(ranked).stream()
+                .collect(Collectors.toMap(PostHeader::id, Function.identity()));
+        List<PostHeader> ordered = ranked.stream().map(headers::get).filter(Objects::nonNull).toList();
+        return hydrate(load(new SliceImpl<>(ordered)), viewerId).slice().getContent();
+    }
+
+    private FeedPage firstPage(String key, Supplier<Slice<PostHeader>> loader) {
+        Cache cache = cacheManager.getCache(CacheNames.POST_FEED);
+        if (cache == null) return load(loader.get());
+        // лайки меняются постоянно, поэтому кэшируется состав страницы, а счётчики дочитываются в hydrate
+        return cache.get(key, () -> load(loader.get()));
+    }
+
+    private FeedPage load(Slice<PostHeader> headers) {
+        List<Long> postIds = headers.map(PostHeader::id).getContent();
+        Map<Long, Long> commentCounts = postIds.isEmpty()
+                ? Map.of()
+                : commentRepository.countByPostIds(postIds).stream()
+                .collect(Collectors.toMap(IdCount::id, IdCount::count));
+        return new FeedPage(headers, commentCounts);
+    }
+
+    private CursorSlice<PostFeedItem> hydrate(FeedPage page, Long viewerId) {
+        Slice<PostHeader> headers = page.headers();
+        Map<Long, Long> commentCounts = page.commentCounts();
+        List<Long> postIds = headers.map(PostHeader::id).getContent();
+        Set<Long> liked = viewerId == null || postIds.isEmpty()
+                ? Set.of()
+                : likeIndex.isReady()
+                ? likeIndex.likedBy(viewerId, postIds)
+                : new HashSet<>(likeRepository.findLikedPostIds(viewerId, postIds));
+        // likes_count перечитывается вместе с буфером: flush переносит дельту между ними атомарно
+        Map<Long, Long> likeCounts = postIds.isEmpty()
+                ? Map.of()
+                : likeCounterBuffer.counts(postIds, () -> postRepository.findLikesCountsByIds(postIds).stream()
+                .collect(Collectors.toMap(IdCount::id, IdCount::count)));
+
+        Slice<PostFeedItem> items = headers.map(h -> new PostFeedItem(
+                h.id(),
+                h.title(),
+                h.excerpt(),
+                h.imagePath(),
+                MediaRef.thumbnailUrl(h.imagePath()),
+                h.authorId(),
+                h.authorUsername(),
+                h.createdAt(),
+                h.updatedAt(),
+                likeCounts.getOrDefault(h.id(), 0L),
+                commentCounts.getOrDefault(h.id(), 0L),
+                liked.contains(h.id())));
+        return CursorSlice.of(items, i -> new FeedCursor(i.createdAt(), i.id()));
+    }
+
+    private record FeedPage(Slice<PostHeader> headers, Map<Long, Long> commentCounts) {
+    }
+
+    private static void requireViewer(Long viewerId) {
+        if (viewerId != null) requireId(viewerId, "viewerId");
+    }
+
+    private static void requireId(Long id, String field) {
+        if (id == null) throw new BadRequestException(field + " не должен быть null");
+        if (id <= 0) throw new BadRequestException(field + " должен быть > 0");
+    }
+}
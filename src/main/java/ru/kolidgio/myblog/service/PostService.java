@@ -1,58 +1,115 @@
 package ru.kolidgio.myblog.service;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
+import ru.kolidgio.myblog.concurrency.DbBulkhead;
+import ru.kolidgio.myblog.config.cache.CacheNames;
 import ru.kolidgio.myblog.dto.post.CreatePostDto;
+import ru.kolidgio.myblog.dto.post.PostView;
 import ru.kolidgio.myblog.dto.post.UpdatePostDto;
 import ru.kolidgio.myblog.model.Post;
 import ru.kolidgio.myblog.model.User;
 import ru.kolidgio.myblog.repository.PostRepository;
 import ru.kolidgio.myblog.repository.UserRepository;
+import ru.kolidgio.myblog.repository.projection.PostHeader;
+import ru.kolidgio.myblog.search.SearchService;
+import ru.kolidgio.myblog.service.counter.LikeCounterBuffer;
 import ru.kolidgio.myblog.service.errors.BadRequestException;
 import ru.kolidgio.myblog.service.errors.ConflictException;
 import ru.kolidgio.myblog.service.errors.NotFoundException;
+import ru.kolidgio.myblog.service.events.DomainEventOutbox;
+import ru.kolidgio.myblog.service.events.PostCreated;
+import ru.kolidgio.myblog.service.presence.IdPresenceIndex;
+import ru.kolidgio.myblog.service.presence.LikeIndex;
+import ru.kolidgio.myblog.service.paging.CursorSlice;
+import ru.kolidgio.myblog.service.paging.FeedCursor;
+import ru.kolidgio.myblog.service.purge.PurgeReaper;
+import ru.kolidgio.myblog.service.purge.PurgeTarget;
+import ru.kolidgio.myblog.service.support.AfterCommit;
+import ru.kolidgio.myblog.service.trending.TrendingIndex;
+import ru.kolidgio.myblog.service.validation.ReadValidators;
+
+import java.time.LocalDateTime;
 
 @Validated
 @Service
+@Timed(value = "myblog.service", histogram = true)
+@DbBulkhead("posts")
 @RequiredArgsConstructor
 public class PostService {
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final LikeCounterBuffer likeCounterBuffer;
+    private final SearchService searchService;
+    private final TrendingIndex trendingIndex;
+    private final IdPresenceIndex idPresence;
+    private final LikeIndex likeIndex;
+    private final ReadValidators readValidators;
+    private final DomainEventOutbox domainEvents;
+    private final PurgeReaper purgeReaper;
 
     @Transactional(readOnly = true)
-    public Page<Post> feedByUser(Long userId, Pageable pageable) {
+    public Page<PostHeader> feedByUser(Long userId, Pageable pageable) {
         requireId(userId, "userId");
         if (pageable == null) {
             throw new BadRequestException("Pageable не должен быть null");
         }
-        if (!userRepository.existsById(userId)) {
-            throw new NotFoundException("User с id " + userId + " не найден");
-        }
-        return postRepository.findAllByUser_IdOrderByCreatedAtDesc(userId, pageable);
+        idPresence.requireUser(userId);
+        return postRepository.findHeaderPageByUser(userId, pageable);
     }
 
     @Transactional(readOnly = true)
-    public Page<Post> feed(Pageable pageable) {
+    public Page<PostHeader> feed(Pageable pageable) {
         if (pageable == null) {
             throw new BadRequestException("Pageable не должен быть null");
         }
-        return postRepository.findAllByOrderByCreatedAtDesc(pageable);
+        return postRepository.findHeaderPage(pageable);
     }
 
     @Transactional(readOnly = true)
-    public Post getOrThrow(Long postId) {
+    public CursorSlice<PostHeader> feed(String cursor, int size) {
+        FeedCursor after = FeedCursor.decode(cursor);
+        Pageable limit = FeedCursor.limit(size);
+        Slice<PostHeader> slice = after == null
+                ? postRepository.findHeaders(limit)
+                : postRepository.findHeadersAfter(after.createdAt(), after.id(), limit);
+        return CursorSlice.of(slice, h -> new FeedCursor(h.createdAt(), h.id()));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorSlice<PostHeader> feedByUser(Long userId, String cursor, int size) {
+        requireId(userId, "userId");
+        FeedCursor after = FeedCursor.decode(cursor);
+        Pageable limit = FeedCursor.limit(size);
+        idPresence.requireUser(userId);
+        Slice<PostHeader> slice = after == null
+                ? postRepository.findHeadersByUser(userId, limit)
+                : postRepository.findHeadersByUserAfter(userId, after.createdAt(), after.id(), limit);
+        return CursorSlice.of(slice, h -> new FeedCursor(h.createdAt(), h.id()));
+    }
+
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheNames.POSTS, key = "#postId", condition = "#postId != null")
+    public PostView getOrThrow(Long postId) {
         requireId(postId, "postId");
-        return postRepository.findById(postId)
+        return postRepository.findWithUserById(postId)
+                .map(PostView::from)
                 .orElseThrow(() -> new NotFoundException("Post с id " + postId + " не найден"));
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheNames.POST_FEED, allEntries = true)
     public Post create(@Valid CreatePostDto dto) {
         requireId(dto.userId(), "userId");
         User user = userRepository.findById(dto.userId())
@@ -64,7 +121,11 @@ public class PostService {
         post.setContent(dto.content().trim());
 
         try {
-            return postRepository.save(post);
+            Post saved = postRepository.save(post);
+            idPresence.postCreated(saved.getId());
+            domainEvents.publish(new PostCreated(saved.getId(), user.getId()));
+            AfterCommit.run(readValidators::feedChanged);
+            return saved;
         } catch (DataIntegrityViolationException e) {
             throw new ConflictException("Не удалось создать пост из-за ограничения БД", e);
         }
@@ -72,6 +133,10 @@ public class PostService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.POSTS, key = "#postId", condition = "#postId != null"),
+            @CacheEvict(cacheNames = CacheNames.POST_FEED, allEntries = true)
+    })
     public Post update(Long postId, @Valid UpdatePostDto dto) {
         requireId(postId, "postId");
         Post post = postRepository.findById(postId)
@@ -80,7 +145,12 @@ public class PostService {
         post.setContent(dto.content().trim());
         post.setImagePath(normalizeNullable(dto.imagePath()));
         try {
-            return postRepository.save(post);
+            Post saved = postRepository.save(post);
+            AfterCommit.run(() -> {
+                searchService.indexPost(saved);
+                readValidators.postChanged(saved.getId(), saved.getUpdatedAt());
+            });
+            return saved;
         } catch (DataIntegrityViolationException e) {
             throw new ConflictException("Не удалось обновить пост из-за ограничения БД", e);
         }
@@ -88,16 +158,24 @@ public class PostService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.POSTS, key = "#postId", condition = "#postId != null"),
+            @CacheEvict(cacheNames = {CacheNames.POST_FEED, CacheNames.COMMENT_FEED}, allEntries = true)
+    })
     public void delete(Long postId) {
         requireId(postId, "postId");
-        if (!postRepository.existsById(postId)) {
-            throw new NotFoundException("Post с id " + postId + " не найден");
-        }
-        try {
-            postRepository.deleteById(postId);
-        } catch (DataIntegrityViolationException e) {
-            throw new ConflictException("Не удалось удалить пост из-за ограничения БД", e);
-        }
+        idPresence.requirePost(postId);
+        // лайки и комментарии дочищает PurgeReaper, здесь только скрываем пост
+        postRepository.softDelete(postId, LocalDateTime.now());
+        purgeReaper.schedule(PurgeTarget.POST, postId);
+        idPresence.postDeleted(postId);
+        AfterCommit.run(() -> {
+            likeCounterBuffer.forget(postId);
+            searchService.removePost(postId);
+            trendingIndex.remove(postId);
+            likeIndex.postDeleted(postId);
+            readValidators.postDeleted(postId);
+        });
     }
 
     private static void requireId(Long id, String field) {
@@ -1,53 +1,82 @@
 package ru.kolidgio.myblog.service;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
+import ru.kolidgio.myblog.config.cache.CacheNames;
 import ru.kolidgio.myblog.dto.user.ChangePasswordDto;
 import ru.kolidgio.myblog.dto.user.CreateUserDto;
 import ru.kolidgio.myblog.dto.user.UpdateUserDto;
+import ru.kolidgio.myblog.dto.user.UserView;
 import ru.kolidgio.myblog.model.User;
 import ru.kolidgio.myblog.repository.UserRepository;
+import ru.kolidgio.myblog.security.PasswordHasher;
 import ru.kolidgio.myblog.service.errors.BadRequestException;
 import ru.kolidgio.myblog.service.errors.ConflictException;
 import ru.kolidgio.myblog.service.errors.NotFoundException;
+import ru.kolidgio.myblog.service.events.DomainEventOutbox;
+import ru.kolidgio.myblog.service.events.UserDeleted;
+import ru.kolidgio.myblog.service.presence.IdPresenceIndex;
+import ru.kolidgio.myblog.service.purge.PurgeReaper;
+import ru.kolidgio.myblog.service.purge.PurgeTarget;
+import ru.kolidgio.myblog.service.support.AfterCommit;
+import ru.kolidgio.myblog.service.validation.ReadValidators;
+
+import java.time.LocalDateTime;
 
 @Service
+@Timed(value = "myblog.service", histogram = true)
 @Validated
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final IdPresenceIndex idPresence;
+    private final ReadValidators readValidators;
+    private final DomainEventOutbox domainEvents;
+    private final PurgeReaper purgeReaper;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional(readOnly = true)
-    public User getByEmail(@Email @NotBlank String email) {
+    @Cacheable(cacheNames = CacheNames.USERS_BY_EMAIL, key = "#email.toLowerCase().trim()", condition = "#email != null")
+    public UserView getByEmail(@Email @NotBlank String email) {
         String normalizedEmail = email.toLowerCase().trim();
         return userRepository.findByEmail(normalizedEmail)
+                .map(UserView::from)
                 .orElseThrow(() -> new NotFoundException("User с email " + normalizedEmail + " не найден"));
 
     }
 
     @Transactional(readOnly = true)
-    public User getByUsername(@NotBlank String username) {
+    @Cacheable(cacheNames = CacheNames.USERS_BY_USERNAME, key = "#username.trim()", condition = "#username != null")
+    public UserView getByUsername(@NotBlank String username) {
         String normalizedUsername = username.trim();
         return userRepository.findByUsername(normalizedUsername)
+                .map(UserView::from)
                 .orElseThrow(() -> new NotFoundException("User с username " + normalizedUsername + " не найден"));
 
     }
 
     @Transactional(readOnly = true)
-    public User getById(Long userId) {
+    @Cacheable(cacheNames = CacheNames.USERS, key = "#userId", condition = "#userId != null")
+    public UserView getById(Long userId) {
         requireId(userId, "userId");
         return userRepository.findById(userId)
+                .map(UserView::from)
                 .orElseThrow(() -> new NotFoundException("User с userId " + userId + " не найден"));
     }
 
-    @Transactional
+    // BCrypt считается вне транзакции: на время хеша и ожидания в пуле хеширования соединение не занято,
+    // транзакция открывается только на вставку строки
     public User create(CreateUserDto dto) {
         String email = dto.email().trim().toLowerCase();
         String username = dto.username().trim();
@@ -60,11 +89,15 @@ public class UserService {
 
         User user = new User();
         user.setEmail(email);
-        user.setPassword(passwordEncoder.encode(dto.password()));
+        user.setPassword(passwordHasher.encode(dto.password(), email));
         user.setUsername(username);
 
         try {
-            return userRepository.save(user);
+            return transactionTemplate.execute(status -> {
+                User saved = userRepository.save(user);
+                idPresence.userCreated(saved.getId());
+                return saved;
+            });
         } catch (DataIntegrityViolationException e) {
             throw new ConflictException("Не удалось сохранить пользователя из-за ограничений БД", e);
         }
@@ -73,6 +106,11 @@ public class UserService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.USERS, key = "#userId", condition = "#userId != null"),
+            @CacheEvict(cacheNames = {CacheNames.USERS_BY_USERNAME, CacheNames.USERS_BY_EMAIL,
+                    CacheNames.POST_FEED, CacheNames.POSTS, CacheNames.COMMENT_FEED}, allEntries = true)
+    })
     public User update(Long userId, UpdateUserDto dto) {
         requireId(userId, "userId");
         User user = userRepository.findById(userId)
@@ -87,10 +125,13 @@ public class UserService {
         if (!user.getUsername().equals(username) && userRepository.existsByUsername(username))
             throw new ConflictException("User с username " + username + " уже существует");
 
+        boolean renamed = !user.getUsername().equals(username);
         user.setEmail(email);
         user.setUsername(username);
         try {
-            return userRepository.save(user);
+            User saved = userRepository.save(user);
+            if (renamed) AfterCommit.run(readValidators::invalidateAll);
+            return saved;
         } catch (DataIntegrityViolationException e) {
             throw new ConflictException("Не удалось изменить пользователя из-за ограничений БД", e);
         }
@@ -98,40 +139,68 @@ public class UserService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.USERS, key = "#userId", condition = "#userId != null"),
+            @CacheEvict(cacheNames = {CacheNames.USERS_BY_USERNAME, CacheNames.USERS_BY_EMAIL,
+                    CacheNames.POST_FEED, CacheNames.POSTS, CacheNames.COMMENT_FEED}, allEntries = true)
+    })
     public void delete(Long userId) {
         requireId(userId, "userId");
-        if (!userRepository.existsById(userId)) {
-            throw new NotFoundException("User с userId " + userId + " не найден");
-        }
-        try {
-            userRepository.deleteById(userId);
-        } catch (DataIntegrityViolationException e) {
-            throw new ConflictException("Не удалось удалить пользователя из-за ограничений БД", e);
-        }
+        idPresence.requireUser(userId);
+        // посты, лайки, комментарии и подписки дочищает PurgeReaper батчами, здесь только скрываем пользователя
+        userRepository.softDelete(userId, LocalDateTime.now());
+        purgeReaper.schedule(PurgeTarget.USER, userId);
+        idPresence.userDeleted(userId);
+        domainEvents.publish(new UserDeleted(userId));
+        AfterCommit.run(readValidators::invalidateAll);
 
     }
 
-    @Transactional
+    // как и create, без общей транзакции: пароль проверяется и хешируется без соединения,
+    // а запись - один короткий compare-and-set в replacePassword
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheNames.USERS, key = "#userId", condition = "#userId != null"),
+            @CacheEvict(cacheNames = {CacheNames.USERS_BY_USERNAME, CacheNames.USERS_BY_EMAIL}, allEntries = true)
+    })
     public User changePassword(Long userId, ChangePasswordDto dto) {
         requireId(userId, "userId");
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User с userId " + userId + " не найден"));
-        if (!passwordEncoder.matches(dto.oldPassword(), user.getPassword()))
-            throw new BadRequestException("Неверный старый пароль");
         if (dto.newPassword() == null || dto.newPassword().trim().isEmpty()) {
             throw new BadRequestException("Новый пароль не должен быть пустым");
         }
-        if (passwordEncoder.matches(dto.newPassword(), user.getPassword())) {
+        String subject = "user:" + userId;
+        if (!passwordHasher.matches(dto.oldPassword(), user.getPassword(), subject))
+            throw new BadRequestException("Неверный старый пароль");
+        if (dto.newPassword().equals(dto.oldPassword())) {
             throw new BadRequestException("Новый пароль должен отличаться от старого");
         }
-        user.setPassword(passwordEncoder.encode(dto.newPassword()));
-
-        try {
-            return userRepository.save(user);
-        } catch (DataIntegrityViolationException e) {
-            throw new ConflictException("Не удалось изменить пароль пользователя из-за ограничений БД", e);
+        String oldHash = user.getPassword();
+        String newHash = passwordHasher.encodeVerified(dto.newPassword());
+        if (userRepository.replacePassword(userId, oldHash, newHash) == 0) {
+            throw new ConflictException("Пароль пользователя был изменён параллельно");
+        }
+        user.setPassword(newHash);
+        return user;
+    }
 
+    public User authenticate(@NotBlank String login, @NotBlank String password) {
+        String normalized = login.trim();
+        User user = (normalized.contains("@")
+                ? userRepository.findByEmail(normalized.toLowerCase())
+                : userRepository.findByUsername(normalized))
+                .orElseThrow(() -> new BadRequestException("Неверный логин или пароль"));
+        String subject = "user:" + user.getId();
+        if (!passwordHasher.matches(password, user.getPassword(), subject)) {
+            throw new BadRequestException("Неверный логин или пароль");
+        }
+        if (passwordHasher.needsUpgrade(user.getPassword())) {
+            String upgraded = passwordHasher.encodeVerified(password);
+            if (userRepository.replacePassword(user.getId(), user.getPassword(), upgraded) > 0) {
+                user.setPassword(upgraded);
+            }
         }
+        return user;
     }
 
 
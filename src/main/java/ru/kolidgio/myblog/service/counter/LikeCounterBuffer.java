@@ -0,0 +1,204 @@
+package ru.kolidgio.myblog.service.counter;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kolidgio.myblog.config.cache.CacheNames;
+import ru.kolidgio.myblog.service.support.AfterCommit;
+import ru.kolidgio.myblog.service.support.SequenceBlockAllocator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Дельта пишется строкой в like_count_deltas в транзакции лайка: вставки не встают в очередь на блокировку
+// строки поста. flush складывает дельты в posts.likes_count и удаляет их в одной транзакции, поэтому
+// каждая дельта применяется ровно один раз, в том числе после падения. В памяти держим закоммиченные,
+// но ещё не сброшенные дельты, чтобы читать счётчик как likes_count + pending.
+// Оба слагаемых меняются под блокировкой полосы поста: flush держит её от изменения строк до вычитания
+// из pending, а читатели сверяют штамп полосы и при гонке перечитывают под блокировкой.
+@Component
+public class LikeCounterBuffer {
+    private static final String INSERT_DELTA = "insert into like_count_deltas(id, post_id, delta) values (?, ?, ?)";
+    private static final String FLUSH_SQL = "update posts set likes_count = likes_count + ? where id = ?";
+    private static final int FLUSH_LIMIT = 10_000;
+    private static final int STRIPES = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final SequenceBlockAllocator ids;
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    private final Map<Long, Delta> unflushed = new ConcurrentHashMap<>();
+    private final StampedLock[] stripes = new StampedLock[STRIPES];
+
+    public LikeCounterBuffer(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             CacheManager cacheManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+        this.ids = new SequenceBlockAllocator(jdbcTemplate, "like_count_deltas_seq");
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new StampedLock();
+        }
+    }
+
+    // вызывается внутри транзакции, которая меняет likes
+    public void add(long postId, long delta) {
+        addAll(Map.of(postId, delta));
+    }
+
+    public void addAll(Map<Long, Long> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        Map<Long, Delta> tracked = new HashMap<>();
+        deltas.forEach((postId, delta) -> {
+            if (delta == 0) return;
+            long id = ids.next();
+            rows.add(new Object[]{id, postId, delta});
+            tracked.put(id, new Delta(postId, delta, false));
+        });
+        if (rows.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_DELTA, rows);
+        // регистрируем до коммита, а в pending добавляем после: flush, успевший сбросить строку раньше
+        // хука, просто снимет регистрацию, и дельта не посчитается дважды
+        unflushed.putAll(tracked);
+        AfterCommit.run(() -> tracked.forEach(this::track));
+        AfterCommit.onRollback(() -> tracked.keySet().forEach(unflushed::remove));
+    }
+
+    public long count(long postId, LongSupplier persisted) {
+        return counts(List.of(postId), () -> Map.of(postId, persisted.getAsLong())).get(postId);
+    }
+
+    // persisted читает likes_count из БД; к каждому значению добавляется ещё не сброшенная дельта
+    public Map<Long, Long> counts(Collection<Long> postIds, Supplier<Map<Long, Long>> persisted) {
+        int[] locks = stripesOf(postIds);
+        long[] stamps = new long[locks.length];
+        for (int i = 0; i < locks.length; i++) {
+            stamps[i] = stripes[locks[i]].tryOptimisticRead();
+        }
+        Map<Long, Long> counts = withPending(persisted.get());
+        if (validate(locks, stamps)) return counts;
+        for (int i = 0; i < locks.length; i++) {
+            stamps[i] = stripes[locks[i]].readLock();
+        }
+        try {
+            return withPending(persisted.get());
+        } finally {
+            for (int i = 0; i < locks.length; i++) {
+                stripes[locks[i]].unlockRead(stamps[i]);
+            }
+        }
+    }
+
+    public void forget(Long postId) {
+        pending.remove(postId);
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${myblog.likes.flush-interval-ms:500}")
+    public synchronized void flush() {
+        List<Long> flushed = new ArrayList<>();
+        Map<Long, Long> sums = new HashMap<>();
+        List<Runnable> unlocks = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.query("select id, post_id, delta from like_count_deltas order by id limit ?", rs -> {
+                    flushed.add(rs.getLong("id"));
+                    sums.merge(rs.getLong("post_id"), rs.getLong("delta"), Long::sum);
+                }, FLUSH_LIMIT);
+                if (flushed.isEmpty()) return;
+                // полосы отпускаются только после коммита и вычитания из pending
+                for (int stripe : stripesOf(sums.keySet())) {
+                    StampedLock lock = stripes[stripe];
+                    long stamp = lock.writeLock();
+                    unlocks.add(() -> lock.unlockWrite(stamp));
+                }
+                jdbcTemplate.batchUpdate(FLUSH_SQL, sums.entrySet().stream()
+                        .filter(e -> e.getValue() != 0)
+                        .map(e -> new Object[]{e.getValue(), e.getKey()})
+                        .toList());
+                jdbcTemplate.batchUpdate("delete from like_count_deltas where id = ?",
+                        flushed.stream().map(id -> new Object[]{id}).toList());
+            });
+            flushed.forEach(this::untrack);
+        } finally {
+            unlocks.forEach(Runnable::run);
+        }
+        if (flushed.isEmpty()) return;
+        evictCached(sums.keySet());
+    }
+
+    private void track(long id, Delta delta) {
+        StampedLock lock = stripes[stripeOf(delta.postId())];
+        long stamp = lock.writeLock();
+        try {
+            // строку уже сбросил flush: её дельта есть в likes_count
+            if (unflushed.replace(id, delta.counted()) == null) return;
+            pending.computeIfAbsent(delta.postId(), key -> new LongAdder()).add(delta.delta());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // вызывается под блокировкой полосы; дельты, записанные до рестарта, в памяти не учтены
+    private void untrack(long id) {
+        Delta d = unflushed.remove(id);
+        if (d == null || !d.counted()) return;
+        LongAdder adder = pending.get(d.postId());
+        if (adder != null) adder.add(-d.delta());
+    }
+
+    private Map<Long, Long> withPending(Map<Long, Long> persisted) {
+        Map<Long, Long> counts = new HashMap<>(persisted);
+        counts.replaceAll((postId, count) -> {
+            LongAdder adder = pending.get(postId);
+            return adder == null ? count : count + adder.sum();
+        });
+        return counts;
+    }
+
+    private boolean validate(int[] locks, long[] stamps) {
+        for (int i = 0; i < locks.length; i++) {
+            if (!stripes[locks[i]].validate(stamps[i])) return false;
+        }
+        return true;
+    }
+
+    // полосы по возрастанию: flush и читатели берут их в одном порядке
+    private static int[] stripesOf(Collection<Long> postIds) {
+        return postIds.stream().mapToInt(LikeCounterBuffer::stripeOf).distinct().sorted().toArray();
+    }
+
+    private static int stripeOf(long postId) {
+        return (int) Math.floorMod(postId, (long) STRIPES);
+    }
+
+    // страницы ленты хранят только состав, счётчики в них дочитываются, поэтому сбрасываем лишь сами посты
+    private void evictCached(Collection<Long> postIds) {
+        Cache posts = cacheManager.getCache(CacheNames.POSTS);
+        if (posts != null) {
+            for (Long postId : postIds) {
+                posts.evict(postId);
+            }
+        }
+    }
+
+    private record Delta(long postId, long delta, boolean counted) {
+
+        Delta counted() {
+            return new Delta(postId, delta, true);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package ru.kolidgio.myblog.service.errors;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
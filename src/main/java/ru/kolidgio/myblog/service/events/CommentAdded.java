@@ -0,0 +1,9 @@
+package ru.kolidgio.myblog.service.events;
+
+public record CommentAdded(long commentId, long postId, long userId) implements DomainEvent {
+
+    @Override
+    public long aggregateId() {
+        return postId;
+    }
+}
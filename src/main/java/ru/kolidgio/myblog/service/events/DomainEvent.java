@@ -0,0 +1,7 @@
+package ru.kolidgio.myblog.service.events;
+
+public sealed interface DomainEvent permits PostCreated, CommentAdded, LikeToggled, UserDeleted {
+
+    // события одного агрегата попадают в одну партицию и обрабатываются по порядку
+    long aggregateId();
+}
@@ -0,0 +1,46 @@
+package ru.kolidgio.myblog.service.events;
+
+import java.util.Arrays;
+
+final class DomainEventCodec {
+
+    private DomainEventCodec() {
+    }
+
+    static String type(DomainEvent event) {
+        return event.getClass().getSimpleName();
+    }
+
+    static String payload(DomainEvent event) {
+        return switch (event) {
+            case PostCreated e -> e.postId() + "," + e.authorId();
+            case CommentAdded e -> e.commentId() + "," + e.postId() + "," + e.userId();
+            case LikeToggled e -> e.postId() + "," + e.userId() + "," + e.delta();
+            case UserDeleted e -> String.valueOf(e.userId());
+        };
+    }
+
+    static DomainEvent decode(String type, String payload) {
+        return switch (type) {
+            case "PostCreated" -> {
+                long[] f = longs(payload);
+                yield new PostCreated(f[0], f[1]);
+            }
+            case "CommentAdded" -> {
+                long[] f = longs(payload);
+                yield new CommentAdded(f[0], f[1], f[2]);
+            }
+            case "LikeToggled" -> {
+                long[] f = longs(payload);
+                yield new LikeToggled(f[0], f[1], f[2]);
+            }
+            case "UserDeleted" -> new UserDeleted(Long.parseLong(payload));
+            default -> throw new IllegalArgumentException("Неизвестный тип события: " + type);
+        };
+    }
+
+    private static long[] longs(String csv) {
+        if (csv.isEmpty()) return new long[0];
+        return Arrays.stream(csv.split(",")).mapToLong(Long::parseLong).toArray();
+    }
+}
@@ -0,0 +1,217 @@
+package ru.kolidgio.myblog.service.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.kolidgio.myblog.service.support.AfterCommit;
+import ru.kolidgio.myblog.service.support.SequenceBlockAllocator;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Событие пишется в outbox в транзакции записи, а после коммита уходит в партицию своего агрегата.
+// Строка удаляется только после успешной обработки. Если обработчик упал, строка остаётся с числом попыток
+// и временем следующей, а партиция переходит в режим догонки: читает свои строки из таблицы по id
+// и не принимает новые события из памяти, пока не разберёт хвост, поэтому порядок внутри агрегата сохраняется.
+@Slf4j
+@Component
+public class DomainEventOutbox {
+    private static final String INSERT_SQL =
+            "insert into outbox_events(id, aggregate_id, event_type, payload) values (?, ?, ?, ?)";
+    private static final String PARTITION_ROWS = """
+            select id, event_type, payload, attempts, next_attempt_at from outbox_events
+            where mod(aggregate_id, ?) = ? order by id limit ?
+            """;
+    private static final String DELETE_SQL = "delete from outbox_events where id = ?";
+    private static final String RETRY_LATER =
+            "update outbox_events set attempts = attempts + 1, next_attempt_at = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher publisher;
+    private final OutboxProperties properties;
+    private final SequenceBlockAllocator ids;
+    private final List<Partition> partitions = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final Timer dispatchTimer;
+    private final Counter failed;
+    private volatile boolean running = true;
+
+    public DomainEventOutbox(JdbcTemplate jdbcTemplate, ApplicationEventPublisher publisher,
+                             OutboxProperties properties, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.publisher = publisher;
+        this.properties = properties;
+        this.ids = new SequenceBlockAllocator(jdbcTemplate, "outbox_seq");
+        this.dispatchTimer = Timer.builder("myblog.outbox.dispatch").publishPercentileHistogram().register(registry);
+        this.failed = Counter.builder("myblog.outbox.failed").register(registry);
+        Gauge.builder("myblog.outbox.catching-up", partitions,
+                        all -> all.stream().filter(Partition::catchingUp).count())
+                .register(registry);
+        for (int i = 0; i < properties.partitions(); i++) {
+            Partition partition = new Partition(i, new ArrayBlockingQueue<>(properties.queueCapacity()));
+            partitions.add(partition);
+            Thread worker = Thread.ofPlatform().name("outbox-" + i).daemon().unstarted(() -> drain(partition));
+            workers.add(worker);
+        }
+    }
+
+    public void publish(DomainEvent event) {
+        long id = ids.next();
+        jdbcTemplate.update(INSERT_SQL, id, event.aggregateId(),
+                DomainEventCodec.type(event), DomainEventCodec.payload(event));
+        AfterCommit.run(() -> offer(new Envelope(id, event, 0)));
+    }
+
+    // воркеры стартуют в режиме догонки: сначала разбирают то, что осталось в таблице с прошлого запуска
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        workers.forEach(Thread::start);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) worker.interrupt();
+        for (Thread worker : workers) worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void offer(Envelope envelope) {
+        Partition partition = partitionOf(envelope.event().aggregateId());
+        synchronized (partition) {
+            // строка уже закоммичена: при догонке или переполнении её дочитает воркер в порядке id
+            if (partition.catchingUp) return;
+            if (!partition.queue.offer(envelope)) partition.catchingUp = true;
+        }
+    }
+
+    private Partition partitionOf(long aggregateId) {
+        return partitions.get((int) Math.floorMod(aggregateId, (long) partitions.size()));
+    }
+
+    private void drain(Partition partition) {
+        List<Envelope> batch = new ArrayList<>(properties.batchSize());
+        while (running) {
+            try {
+                if (partition.catchingUp()) {
+                    Duration wait = catchUp(partition);
+                    if (wait != null) Thread.sleep(wait.toMillis());
+                    continue;
+                }
+                Envelope first = partition.queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                partition.queue.drainTo(batch, properties.batchSize() - 1);
+                if (!dispatch(batch)) fallBehind(partition);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // строки остались в outbox: партиция дочитает их из таблицы
+                log.warn("Не удалось завершить пакет событий outbox", e);
+                fallBehind(partition);
+                sleepQuietly(properties.retryBackoff());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // null - можно сразу читать дальше, иначе сколько ждать до следующей попытки
+    private Duration catchUp(Partition partition) {
+        List<Envelope> rows;
+        LocalDateTime retryAt;
+        synchronized (partition) {
+            // выборка под блокировкой партиции: offer либо увидит catchingUp и оставит событие таблице,
+            // либо придёт после того, как пустая выборка сняла флаг
+            List<Object[]> stored = jdbcTemplate.query(PARTITION_ROWS, (rs, i) -> new Object[]{
+                            new Envelope(rs.getLong("id"),
+                                    DomainEventCodec.decode(rs.getString("event_type"), rs.getString("payload")),
+                                    rs.getInt("attempts")),
+                            rs.getObject("next_attempt_at", LocalDateTime.class)},
+                    partitions.size(), partition.index, properties.batchSize());
+            if (stored.isEmpty()) {
+                partition.catchingUp = false;
+                return null;
+            }
+            rows = stored.stream().map(row -> (Envelope) row[0]).toList();
+            retryAt = (LocalDateTime) stored.get(0)[1];
+        }
+        if (retryAt != null && retryAt.isAfter(LocalDateTime.now())) {
+            return Duration.between(LocalDateTime.now(), retryAt);
+        }
+        return dispatch(rows) ? null : properties.retryBackoff();
+    }
+
+    // события обрабатываются по порядку; на первой ошибке останавливаемся, хвост остаётся в таблице
+    private boolean dispatch(List<Envelope> batch) {
+        List<Object[]> delivered = new ArrayList<>(batch.size());
+        boolean completed = true;
+        for (Envelope envelope : batch) {
+            try {
+                dispatchTimer.record(() -> publisher.publishEvent(envelope.event()));
+                delivered.add(new Object[]{envelope.id()});
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.warn("Обработчик события {} завершился ошибкой, попытка {}",
+                        envelope.event(), envelope.attempts() + 1, e);
+                jdbcTemplate.update(RETRY_LATER, Timestamp.valueOf(LocalDateTime.now().plus(backoff(envelope))),
+                        envelope.id());
+                completed = false;
+                break;
+            }
+        }
+        if (!delivered.isEmpty()) jdbcTemplate.batchUpdate(DELETE_SQL, delivered);
+        return completed;
+    }
+
+    private Duration backoff(Envelope envelope) {
+        Duration delay = properties.retryBackoff().multipliedBy(1L << Math.min(envelope.attempts(), 20));
+        return delay.compareTo(properties.maxRetryBackoff()) > 0 ? properties.maxRetryBackoff() : delay;
+    }
+
+    private static void fallBehind(Partition partition) {
+        synchronized (partition) {
+            partition.catchingUp = true;
+            partition.queue.clear();
+        }
+    }
+
+    private static void sleepQuietly(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Partition {
+        private final int index;
+        private final BlockingQueue<Envelope> queue;
+        private boolean catchingUp = true;
+
+        private Partition(int index, BlockingQueue<Envelope> queue) {
+            this.index = index;
+            this.queue = queue;
+        }
+
+        private synchronized boolean catchingUp() {
+            return catchingUp;
+        }
+    }
+
+    private record Envelope(long id, DomainEvent event, int attempts) {
+    }
+}
@@ -0,0 +1,9 @@
+package ru.kolidgio.myblog.service.events;
+
+public record LikeToggled(long postId, long userId, long delta) implements DomainEvent {
+
+    @Override
+    public long aggregateId() {
+        return postId;
+    }
+}
@@ -0,0 +1,10 @@
+package ru.kolidgio.myblog.service.events;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "myblog.outbox")
+public record OutboxProperties(int partitions, int queueCapacity, int batchSize, Duration retryBackoff,
+                               Duration maxRetryBackoff) {
+}
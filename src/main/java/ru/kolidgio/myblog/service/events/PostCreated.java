@@ -0,0 +1,9 @@
+package ru.kolidgio.myblog.service.events;
+
+public record PostCreated(long postId, long authorId) implements DomainEvent {
+
+    @Override
+    public long aggregateId() {
+        return postId;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.kolidgio.myblog.service.events;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.kolidgio.myblog.repository.CommentRepository;
+import ru.kolidgio.myblog.repository.PostRepository;
+import ru.kolidgio.myblog.search.SearchService;
+import ru.kolidgio.myblog.service.presence.LikeIndex;
+import ru.kolidgio.myblog.service.timeline.HomeTimelineStore;
+import ru.kolidgio.myblog.service.trending.TrendingIndex;
+
+@Component
+@RequiredArgsConstructor
+public class SideEffectHandlers {
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final SearchService searchService;
+    private final HomeTimelineStore homeTimelines;
+    private final TrendingIndex trendingIndex;
+    private final LikeIndex likeIndex;
+
+    @EventListener
+    public void on(PostCreated event) {
+        postRepository.findById(event.postId()).ifPresent(searchService::indexPost);
+        homeTimelines.fanOut(event.authorId(), event.postId());
+    }
+
+    @EventListener
+    public void on(CommentAdded event) {
+        commentRepository.findById(event.commentId()).ifPresent(comment ->
+                searchService.indexComment(event.commentId(), event.userId(), event.postId(),
+                        comment.getUpdatedAt(), comment.getContent()));
+        trendingIndex.recordComment(event.postId());
+    }
+
+    @EventListener
+    public void on(LikeToggled event) {
+        trendingIndex.recordLike(event.postId(), event.delta());
+    }
+
+    @EventListener
+    public void on(UserDeleted event) {
+        searchService.removeOwner(event.userId());
+        likeIndex.userDeleted(event.userId());
+    }
+}
@@ -0,0 +1,9 @@
+package ru.kolidgio.myblog.service.events;
+
+public record UserDeleted(long userId) implements DomainEvent {
+
+    @Override
+    public long aggregateId() {
+        return userId;
+    }
+}
@@ -0,0 +1,6 @@
+package ru.kolidgio.myblog.service.ingest;
+
+import java.time.LocalDateTime;
+
+public record AcceptedComment(Long id, Long postId, LocalDateTime acceptedAt, boolean pending) {
+}
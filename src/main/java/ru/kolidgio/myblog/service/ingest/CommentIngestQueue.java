@@ -0,0 +1,181 @@
+package ru.kolidgio.myblog.service.ingest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kolidgio.myblog.config.cache.CacheNames;
+import ru.kolidgio.myblog.model.Comment;
+import ru.kolidgio.myblog.service.errors.TooManyRequestsException;
+import ru.kolidgio.myblog.service.events.CommentAdded;
+import ru.kolidgio.myblog.service.events.DomainEventOutbox;
+import ru.kolidgio.myblog.service.support.SequenceBlockAllocator;
+import ru.kolidgio.myblog.service.validation.ReadValidators;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+@ConditionalOnProperty(name = "myblog.comments.write-behind.enabled", havingValue = "true")
+public class CommentIngestQueue {
+    private static final String INSERT_SQL = """
+            insert into comments(id, user_id, post_id, path, content, created_at, updated_at)
+            values (?, ?, ?, ?, ?, ?, ?)
+            on conflict do nothing
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final DomainEventOutbox domainEvents;
+    private final ReadValidators readValidators;
+    private final WriteBehindProperties properties;
+    private final SequenceBlockAllocator ids;
+    private final CommentJournal journal;
+    private final Queue<PendingComment> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter dropped;
+
+    public CommentIngestQueue(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              CacheManager cacheManager, DomainEventOutbox domainEvents, ReadValidators readValidators,
+                              SequenceBlockAllocator commentIds, WriteBehindProperties properties,
+                              MeterRegistry registry) throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+        this.domainEvents = domainEvents;
+        this.readValidators = readValidators;
+        this.properties = properties;
+        this.ids = commentIds;
+        this.journal = new CommentJournal(properties.journalDir(), properties.syncWrites());
+        this.dropped = Counter.builder("myblog.comments.write-behind.dropped").register(registry);
+        Gauge.builder("myblog.comments.write-behind.queued", queued, AtomicInteger::get).register(registry);
+        journal.replay(comment -> {
+            queue.offer(comment);
+            queued.incrementAndGet();
+        });
+    }
+
+    public PendingComment enqueue(long userId, long postId, String content) {
+        if (queued.incrementAndGet() > properties.capacity()) {
+            queued.decrementAndGet();
+            throw new TooManyRequestsException("Очередь комментариев переполнена, повторите позже");
+        }
+        PendingComment comment = new PendingComment(ids.next(), userId, postId, content, LocalDateTime.now());
+        try {
+            long ticket;
+            synchronized (journal) {
+                ticket = journal.append(comment);
+                queue.offer(comment);
+            }
+            // fsync вне общей блокировки: один поток синхронизирует журнал за всю накопившуюся группу
+            journal.awaitDurable(ticket);
+        } catch (IOException e) {
+            queued.decrementAndGet();
+            throw new UncheckedIOException("Не удалось записать комментарий в журнал", e);
+        }
+        return comment;
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        flush();
+        journal.close();
+    }
+
+    @Scheduled(fixedDelayString = "${myblog.comments.write-behind.flush-interval-ms:200}")
+    public synchronized void flush() throws IOException {
+        List<Path> files;
+        List<PendingComment> drained = new ArrayList<>();
+        synchronized (journal) {
+            if (queue.isEmpty() && !journal.hasSealed()) return;
+            files = journal.rotate();
+            for (PendingComment comment = queue.poll(); comment != null; comment = queue.poll()) {
+                drained.add(comment);
+            }
+        }
+        queued.addAndGet(-drained.size());
+        drained.sort(Comparator.comparingLong(PendingComment::postId).thenComparingLong(PendingComment::id));
+
+        List<PendingComment> written = new ArrayList<>(drained.size());
+        int from = 0;
+        try {
+            for (; from < drained.size(); from += properties.batchSize()) {
+                written.addAll(insert(drained.subList(from, Math.min(from + properties.batchSize(), drained.size()))));
+            }
+        } catch (RuntimeException e) {
+            List<PendingComment> remaining = drained.subList(from, drained.size());
+            remaining.forEach(queue::offer);
+            queued.addAndGet(remaining.size());
+            published(written);
+            throw e;
+        }
+        published(written);
+        journal.release(files);
+    }
+
+    private List<PendingComment> insert(List<PendingComment> batch) {
+        try {
+            return transactionTemplate.execute(status -> store(batch));
+        } catch (DataIntegrityViolationException e) {
+            List<PendingComment> accepted = new ArrayList<>(batch.size());
+            for (PendingComment comment : batch) {
+                try {
+                    accepted.addAll(transactionTemplate.execute(status -> store(List.of(comment))));
+                } catch (DataIntegrityViolationException rejected) {
+                    dropped.increment();
+                }
+            }
+            return accepted;
+        }
+    }
+
+    // Строки, записанные до падения, при повторе журнала пропускаются: их CommentAdded уже в outbox.
+    // Событие пишется в той же транзакции, что и комментарий, и обрабатывается теми же обработчиками.
+    private List<PendingComment> store(List<PendingComment> batch) {
+        String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+        Set<Long> stored = new HashSet<>(jdbcTemplate.queryForList("select id from comments where id in (" + placeholders + ")",
+                Long.class, batch.stream().map(PendingComment::id).toArray()));
+        List<PendingComment> fresh = batch.stream().filter(comment -> !stored.contains(comment.id())).toList();
+        if (fresh.isEmpty()) return fresh;
+        jdbcTemplate.batchUpdate(INSERT_SQL, fresh.stream().map(CommentIngestQueue::params).toList());
+        fresh.forEach(comment -> domainEvents.publish(new CommentAdded(comment.id(), comment.postId(), comment.userId())));
+        return fresh;
+    }
+
+    // вызывается после коммита батчей, так что новая отметка не опережает видимые строки
+    private void published(List<PendingComment> written) {
+        if (written.isEmpty()) return;
+        for (String name : List.of(CacheNames.COMMENT_FEED, CacheNames.POST_FEED)) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) cache.clear();
+        }
+        written.stream().map(PendingComment::postId).distinct().forEach(readValidators::commentsChanged);
+    }
+
+    private static Object[] params(PendingComment comment) {
+        Timestamp at = Timestamp.valueOf(comment.createdAt());
+        return new Object[]{comment.id(), comment.userId(), comment.postId(), Comment.pathSegment(comment.id()),
+                comment.content(), at, at};
+    }
+}
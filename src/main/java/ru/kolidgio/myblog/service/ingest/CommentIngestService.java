@@ -0,0 +1,43 @@
+package ru.kolidgio.myblog.service.ingest;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+import ru.kolidgio.myblog.dto.comment.CreateCommentDto;
+import ru.kolidgio.myblog.model.Comment;
+import ru.kolidgio.myblog.service.CommentService;
+import ru.kolidgio.myblog.service.errors.BadRequestException;
+import ru.kolidgio.myblog.service.presence.IdPresenceIndex;
+
+@Validated
+@Service
+@Timed(value = "myblog.service", histogram = true)
+@RequiredArgsConstructor
+public class CommentIngestService {
+    private final CommentService commentService;
+    private final ObjectProvider<CommentIngestQueue> writeBehind;
+    private final IdPresenceIndex idPresence;
+
+    public AcceptedComment submit(Long postId, @Valid CreateCommentDto dto) {
+        CommentIngestQueue queue = writeBehind.getIfAvailable();
+        // ответ меняет счётчик у родителя, поэтому пишется синхронно
+        if (queue == null || dto.parentId() != null) {
+            Comment saved = commentService.create(postId, dto);
+            return new AcceptedComment(saved.getId(), postId, saved.getUpdatedAt(), false);
+        }
+        requireId(dto.userId(), "userId");
+        requireId(postId, "postId");
+        idPresence.requireUser(dto.userId());
+        idPresence.requirePost(postId);
+        PendingComment pending = queue.enqueue(dto.userId(), postId, dto.content().trim());
+        return new AcceptedComment(pending.id(), postId, pending.createdAt(), true);
+    }
+
+    private static void requireId(Long id, String field) {
+        if (id == null) throw new BadRequestException(field + " не должен быть null");
+        if (id <= 0) throw new BadRequestException(field + " должен быть > 0");
+    }
+}
@@ -0,0 +1,199 @@
+package ru.kolidgio.myblog.service.ingest;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Записи дописываются под монитором журнала, а fsync выполняется отдельно групповым коммитом:
+// один поток синхронизирует файл за всех, кто успел дописать свои записи, остальные ждут его результата.
+public class CommentJournal implements AutoCloseable {
+    private static final String PREFIX = "comments-";
+    private static final String SUFFIX = ".journal";
+    private static final int MAX_RECORD = 1 << 20;
+
+    private final Path dir;
+    private final boolean syncWrites;
+    private final List<Path> sealed = new ArrayList<>();
+    private final Object syncLock = new Object();
+    private long appended;
+    private long durable;
+    private boolean syncing;
+    private long nextFile;
+    private Path currentPath;
+    private FileChannel current;
+
+    public CommentJournal(Path dir, boolean syncWrites) throws IOException {
+        this.dir = dir;
+        this.syncWrites = syncWrites;
+        Files.createDirectories(dir);
+        sealed.addAll(files());
+        nextFile = sealed.isEmpty() ? 1 : number(sealed.get(sealed.size() - 1)) + 1;
+        open();
+    }
+
+    public synchronized void replay(Consumer<PendingComment> apply) throws IOException {
+        for (Path file : sealed) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                PendingComment comment;
+                while ((comment = read(in)) != null) {
+                    apply.accept(comment);
+                }
+            }
+        }
+    }
+
+    // возвращает номер записи для awaitDurable
+    public synchronized long append(PendingComment comment) throws IOException {
+        byte[] payload = encode(comment);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + payload.length + Long.BYTES);
+        record.putInt(payload.length).put(payload).putLong(crc.getValue()).flip();
+        while (record.hasRemaining()) {
+            current.write(record);
+        }
+        return ++appended;
+    }
+
+    public void awaitDurable(long ticket) throws IOException {
+        if (!syncWrites) return;
+        synchronized (syncLock) {
+            while (durable < ticket && syncing) {
+                try {
+                    syncLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Ожидание fsync журнала прервано", e);
+                }
+            }
+            if (durable >= ticket) return;
+            syncing = true;
+        }
+        long target;
+        FileChannel channel;
+        synchronized (this) {
+            target = appended;
+            channel = current;
+        }
+        boolean synced = false;
+        try {
+            channel.force(false);
+            synced = true;
+        } catch (ClosedChannelException e) {
+            // файл уже закрыт rotate, который синхронизировал его целиком
+            synced = true;
+        } finally {
+            synchronized (syncLock) {
+                if (synced) durable = Math.max(durable, target);
+                syncing = false;
+                syncLock.notifyAll();
+            }
+        }
+    }
+
+    public synchronized List<Path> rotate() throws IOException {
+        current.force(false);
+        current.close();
+        markDurable();
+        sealed.add(currentPath);
+        open();
+        return List.copyOf(sealed);
+    }
+
+    public synchronized boolean hasSealed() {
+        return !sealed.isEmpty();
+    }
+
+    public synchronized void release(List<Path> files) throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+            sealed.remove(file);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        current.force(false);
+        current.close();
+        markDurable();
+    }
+
+    private void markDurable() {
+        synchronized (syncLock) {
+            durable = Math.max(durable, appended);
+            syncLock.notifyAll();
+        }
+    }
+
+    private void open() throws IOException {
+        currentPath = dir.resolve(String.format("%s%012d%s", PREFIX, nextFile++, SUFFIX));
+        current = FileChannel.open(currentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                    .filter(p -> p.getFileName().toString().startsWith(PREFIX))
+                    .filter(p -> p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long number(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static byte[] encode(PendingComment comment) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + comment.content().length() * 3);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(comment.id());
+        out.writeLong(comment.userId());
+        out.writeLong(comment.postId());
+        out.writeLong(Timestamp.valueOf(comment.createdAt()).getTime());
+        out.writeUTF(comment.content());
+        return bytes.toByteArray();
+    }
+
+    private static PendingComment read(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length <= 0 || length > MAX_RECORD) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (in.readLong() != crc.getValue()) {
+                return null;
+            }
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+            long id = record.readLong();
+            long userId = record.readLong();
+            long postId = record.readLong();
+            LocalDateTime createdAt = new Timestamp(record.readLong()).toLocalDateTime();
+            return new PendingComment(id, userId, postId, record.readUTF(), createdAt);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+}
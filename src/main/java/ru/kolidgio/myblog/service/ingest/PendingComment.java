@@ -0,0 +1,6 @@
+package ru.kolidgio.myblog.service.ingest;
+
+import java.time.LocalDateTime;
+
+public record PendingComment(long id, long userId, long postId, String content, LocalDateTime createdAt) {
+}
@@ -0,0 +1,15 @@
+package ru.kolidgio.myblog.service.ingest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@ConfigurationProperties(prefix = "myblog.comments.write-behind")
+public record WriteBehindProperties(
+        boolean enabled,
+        int capacity,
+        int batchSize,
+        Path journalDir,
+        boolean syncWrites
+) {
+}
@@ -0,0 +1,16 @@
+package ru.kolidgio.myblog.service.paging;
+
+import org.springframework.data.domain.Slice;
+
+import java.util.function.Function;
+
+public record CursorSlice<T>(Slice<T> slice, String nextCursor) {
+
+    public static <T> CursorSlice<T> of(Slice<T> slice, Function<T, FeedCursor> cursorOf) {
+        if (!slice.hasNext() || !slice.hasContent()) {
+            return new CursorSlice<>(slice, null);
+        }
+        T last = slice.getContent().get(slice.getNumberOfElements() - 1);
+        return new CursorSlice<>(slice, cursorOf.apply(last).encode());
+    }
+}
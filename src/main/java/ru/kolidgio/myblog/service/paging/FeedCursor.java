@@ -0,0 +1,42 @@
+package ru.kolidgio.myblog.service.paging;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.kolidgio.myblog.service.errors.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+public record FeedCursor(LocalDateTime createdAt, Long id) {
+    public static final int MAX_SIZE = 100;
+
+    public static FeedCursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            if (sep < 0) throw new BadRequestException("Некорректный курсор");
+            FeedCursor cursor = new FeedCursor(
+                    LocalDateTime.parse(raw.substring(0, sep)),
+                    Long.parseLong(raw.substring(sep + 1)));
+            if (cursor.id() <= 0) throw new BadRequestException("Некорректный курсор");
+            return cursor;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Некорректный курсор");
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Pageable limit(int size) {
+        if (size <= 0 || size > MAX_SIZE) {
+            throw new BadRequestException("size должен быть от 1 до " + MAX_SIZE);
+        }
+        return PageRequest.of(0, size);
+    }
+}
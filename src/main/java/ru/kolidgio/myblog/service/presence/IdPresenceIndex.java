@@ -0,0 +1,160 @@
+package ru.kolidgio.myblog.service.presence;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.kolidgio.myblog.bulk.BulkEntity;
+import ru.kolidgio.myblog.bulk.BulkImportCompleted;
+import ru.kolidgio.myblog.service.errors.NotFoundException;
+import ru.kolidgio.myblog.service.support.AfterCommit;
+import ru.kolidgio.myblog.service.support.CompactIdSet;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Id добавляются до коммита (и убираются при откате), а удаляются после коммита,
+// поэтому набор всегда надмножество закоммиченных id: отрицательный ответ точен.
+@Component
+public class IdPresenceIndex {
+    private static final int LOAD_FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Tracked users = new Tracked("users");
+    private final Tracked posts = new Tracked("posts");
+
+    public IdPresenceIndex(JdbcTemplate jdbcTemplate, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (Tracked tracked : List.of(users, posts)) {
+            Gauge.builder("myblog.presence.ids", tracked, t -> t.ids.cardinality())
+                    .tag("table", tracked.table)
+                    .register(registry);
+            Gauge.builder("myblog.presence.bytes", tracked, t -> t.ids.sizeInBytes())
+                    .tag("table", tracked.table)
+                    .register(registry);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload(users);
+        reload(posts);
+    }
+
+    @EventListener
+    public void onBulkImport(BulkImportCompleted event) {
+        if (event.entity() == BulkEntity.USERS) reload(users);
+        if (event.entity() == BulkEntity.POSTS) reload(posts);
+    }
+
+    public void requireUser(Long userId) {
+        if (!exists(users, userId)) {
+            throw new NotFoundException("User с id " + userId + " не найден");
+        }
+    }
+
+    public void requirePost(Long postId) {
+        if (!exists(posts, postId)) {
+            throw new NotFoundException("Post с id " + postId + " не найден");
+        }
+    }
+
+    public void requirePosts(Collection<Long> postIds) {
+        if (postIds.isEmpty()) return;
+        if (posts.ready) {
+            for (Long postId : postIds) requirePost(postId);
+            return;
+        }
+        String placeholders = String.join(",", Collections.nCopies(postIds.size(), "?"));
+        Set<Long> found = new HashSet<>(jdbcTemplate.queryForList(
+                "select id from posts where deleted_at is null and id in (" + placeholders + ")", Long.class, postIds.toArray()));
+        for (Long postId : postIds) {
+            if (!found.contains(postId)) throw new NotFoundException("Post с id " + postId + " не найден");
+        }
+    }
+
+    public void userCreated(long userId) {
+        added(users, userId);
+    }
+
+    // посты удалённого пользователя снимает PurgeReaper по мере того, как скрывает их
+    public void userDeleted(long userId) {
+        AfterCommit.run(() -> users.remove(userId));
+    }
+
+    public void postCreated(long postId) {
+        added(posts, postId);
+    }
+
+    public void postDeleted(long postId) {
+        AfterCommit.run(() -> posts.remove(postId));
+    }
+
+    private boolean exists(Tracked tracked, Long id) {
+        if (id == null || id <= 0) return false;
+        if (tracked.ready) return tracked.ids.contains(id);
+        Long found = jdbcTemplate.queryForObject(
+                "select count(*) from " + tracked.table + " where id = ? and deleted_at is null", Long.class, id);
+        return found != null && found > 0;
+    }
+
+    private static void added(Tracked tracked, long id) {
+        tracked.add(id);
+        AfterCommit.onRollback(() -> tracked.remove(id));
+    }
+
+    private void reload(Tracked tracked) {
+        tracked.beginReload();
+        CompactIdSet fresh = new CompactIdSet();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("select id from " + tracked.table + " where deleted_at is null");
+            ps.setFetchSize(LOAD_FETCH_SIZE);
+            return ps;
+        }, rs -> {
+            fresh.add(rs.getLong(1));
+        });
+        tracked.finishReload(fresh);
+    }
+
+    private static final class Tracked {
+        private final String table;
+        private volatile CompactIdSet ids = new CompactIdSet();
+        private volatile boolean ready;
+        private List<Long> changes;
+
+        private Tracked(String table) {
+            this.table = table;
+        }
+
+        synchronized void add(long id) {
+            ids.add(id);
+            if (changes != null) changes.add(id);
+        }
+
+        synchronized void remove(long id) {
+            ids.remove(id);
+            if (changes != null) changes.add(-id);
+        }
+
+        synchronized void beginReload() {
+            changes = new ArrayList<>();
+        }
+
+        synchronized void finishReload(CompactIdSet fresh) {
+            for (long change : changes) {
+                if (change > 0) fresh.add(change);
+                else fresh.remove(-change);
+            }
+            ids = fresh;
+            changes = null;
+            ready = true;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package ru.kolidgio.myblog.service.presence;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.kolidgio.myblog.bulk.BulkEntity;
+import ru.kolidgio.myblog.bulk.BulkImportCompleted;
+import ru.kolidgio.myblog.service.support.CompactIdSet;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class LikeIndex {
+    private static final int LOAD_FETCH_SIZE = 5000;
+    private static final CompactIdSet EMPTY = new CompactIdSet();
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Map<Long, CompactIdSet> likersByPost = new ConcurrentHashMap<>();
+    private volatile Map<Long, CompactIdSet> postsByUser = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private List<long[]> changes;
+
+    public LikeIndex(JdbcTemplate jdbcTemplate, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        Gauge.builder("myblog.likes.index.posts", this, index -> index.likersByPost.size()).register(registry);
+        Gauge.builder("myblog.likes.index.users", this, index -> index.postsByUser.size()).register(registry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (this) {
+            changes = new ArrayList<>();
+        }
+        Map<Long, CompactIdSet> byPost = new ConcurrentHashMap<>();
+        Map<Long, CompactIdSet> byUser = new ConcurrentHashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("select post_id, user_id from likes");
+            ps.setFetchSize(LOAD_FETCH_SIZE);
+            return ps;
+        }, rs -> {
+            link(byPost, byUser, rs.getLong(1), rs.getLong(2));
+        });
+        synchronized (this) {
+            for (long[] change : changes) {
+                if (change[2] > 0) link(byPost, byUser, change[0], change[1]);
+                else unlink(byPost, byUser, change[0], change[1]);
+            }
+            likersByPost = byPost;
+            postsByUser = byUser;
+            changes = null;
+            ready = true;
+        }
+    }
+
+    @EventListener
+    public void onBulkImport(BulkImportCompleted event) {
+        if (event.entity() == BulkEntity.LIKES) load();
+    }
+
+    public synchronized void liked(long postId, long userId) {
+        link(likersByPost, postsByUser, postId, userId);
+        if (changes != null) changes.add(new long[]{postId, userId, 1});
+    }
+
+    public synchronized void unliked(long postId, long userId) {
+        unlink(likersByPost, postsByUser, postId, userId);
+        if (changes != null) changes.add(new long[]{postId, userId, -1});
+    }
+
+    public synchronized void postDeleted(long postId) {
+        CompactIdSet likers = likersByPost.get(postId);
+        if (likers == null) return;
+        for (long userId : likers.toArray()) {
+            unliked(postId, userId);
+        }
+    }
+
+    public synchronized void userDeleted(long userId) {
+        CompactIdSet posts = postsByUser.get(userId);
+        if (posts == null) return;
+        for (long postId : posts.toArray()) {
+            unliked(postId, userId);
+        }
+    }
+
+    public Set<Long> likedBy(long userId, Collection<Long> postIds) {
+        CompactIdSet liked = postsByUser.getOrDefault(userId, EMPTY);
+        Set<Long> result = new HashSet<>();
+        for (Long postId : postIds) {
+            if (liked.contains(postId)) result.add(postId);
+        }
+        return result;
+    }
+
+    public boolean isLiked(long postId, long userId) {
+        return postsByUser.getOrDefault(userId, EMPTY).contains(postId);
+    }
+
+    public long[] likedByBoth(long userA, long userB) {
+        return postsByUser.getOrDefault(userA, EMPTY).and(postsByUser.getOrDefault(userB, EMPTY)).toArray();
+    }
+
+    public long[] likersAmong(long postId, CompactIdSet userIds) {
+        return likersByPost.getOrDefault(postId, EMPTY).and(userIds).toArray();
+    }
+
+    private static void link(Map<Long, CompactIdSet> byPost, Map<Long, CompactIdSet> byUser, long postId, long userId) {
+        byPost.computeIfAbsent(postId, id -> new CompactIdSet()).add(userId);
+        byUser.computeIfAbsent(userId, id -> new CompactIdSet()).add(postId);
+    }
+
+    private static void unlink(Map<Long, CompactIdSet> byPost, Map<Long, CompactIdSet> byUser, long postId, long userId) {
+        byPost.computeIfPresent(postId, (id, users) -> users.remove(userId) && users.cardinality() == 0 ? null : users);
+        byUser.computeIfPresent(userId, (id, posts) -> posts.remove(postId) && posts.cardinality() == 0 ? null : posts);
+    }
+}
@@ -0,0 +1,10 @@
+package ru.kolidgio.myblog.service.purge;
+
+public enum PurgePhase {
+    POSTS,
+    LIKES,
+    COMMENTS,
+    FOLLOWS,
+    AWAIT_POSTS,
+    ROW
+}
@@ -0,0 +1,7 @@
+package ru.kolidgio.myblog.service.purge;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "myblog.purge")
+public record PurgeProperties(int batchSize, int batchesPerRun) {
+}
@@ -0,0 +1,222 @@
+package ru.kolidgio.myblog.service.purge;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kolidgio.myblog.model.Comment;
+import ru.kolidgio.myblog.search.SearchService;
+import ru.kolidgio.myblog.service.counter.LikeCounterBuffer;
+import ru.kolidgio.myblog.service.presence.IdPresenceIndex;
+import ru.kolidgio.myblog.service.presence.LikeIndex;
+import ru.kolidgio.myblog.service.support.AfterCommit;
+import ru.kolidgio.myblog.service.trending.TrendingIndex;
+import ru.kolidgio.myblog.service.validation.ReadValidators;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Удаление пользователя или поста только ставит deleted_at, зависимые строки дочищаются здесь
+// небольшими батчами, каждый в своей транзакции. Фаза хранится в purge_tasks, после рестарта задача продолжается с неё.
+@Slf4j
+@Component
+public class PurgeReaper {
+    private static final String INSERT_TASK = "insert into purge_tasks(target, target_id, phase) values (?, ?, ?)";
+    // выборки открыты, чтобы QueryPlanTests проверял планы именно этих запросов
+    public static final String NEXT_TASK = """
+            select t.id, t.target, t.target_id, t.phase
+            from purge_tasks t
+            where t.finished_at is null
+              and not (t.phase = 'AWAIT_POSTS' and exists (select 1 from posts p where p.user_id = t.target_id))
+            order by t.id
+            limit 1
+            """;
+    public static final String DELETE_POST_LIKES =
+            "delete from likes where id in (select id from likes where post_id = ? limit ?)";
+    // листья раньше предков, чтобы каскад по parent_id не разрастался внутри батча
+    public static final String DELETE_POST_COMMENTS =
+            "delete from comments where id in (select id from comments where post_id = ? order by path desc limit ?)";
+    public static final String SUBTREE_LEAVES_FIRST = """
+            select id from comments
+            where post_id = ? and path >= ? and path < ?
+            order by path desc
+            limit ?
+            """;
+    public static final String DELETE_FOLLOWING =
+            "delete from follows where id in (select id from follows where follower_id = ? limit ?)";
+    public static final String DELETE_FOLLOWERS =
+            "delete from follows where id in (select id from follows where followee_id = ? limit ?)";
+    public static final String USER_POSTS = "select id from posts where user_id = ? and deleted_at is null limit ?";
+    public static final String USER_LIKES = "select id, post_id from likes where user_id = ? limit ?";
+    public static final String USER_COMMENTS = "select id, post_id, parent_id, path from comments where user_id = ? limit ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PurgeProperties properties;
+    private final ReadValidators readValidators;
+    private final IdPresenceIndex idPresence;
+    private final LikeIndex likeIndex;
+    private final TrendingIndex trendingIndex;
+    private final LikeCounterBuffer likeCounterBuffer;
+    private final SearchService searchService;
+    private final Map<PurgePhase, Counter> purged = new EnumMap<>(PurgePhase.class);
+
+    public PurgeReaper(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                       PurgeProperties properties, ReadValidators readValidators, IdPresenceIndex idPresence,
+                       LikeIndex likeIndex, TrendingIndex trendingIndex, LikeCounterBuffer likeCounterBuffer,
+                       SearchService searchService, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.readValidators = readValidators;
+        this.idPresence = idPresence;
+        this.likeIndex = likeIndex;
+        this.trendingIndex = trendingIndex;
+        this.likeCounterBuffer = likeCounterBuffer;
+        this.searchService = searchService;
+        for (PurgePhase phase : PurgePhase.values()) {
+            purged.put(phase, Counter.builder("myblog.purge.rows").tag("phase", phase.name()).register(registry));
+        }
+    }
+
+    public void schedule(PurgeTarget target, long targetId) {
+        jdbcTemplate.update(INSERT_TASK, target.name(), targetId, target.first().name());
+    }
+
+    @Scheduled(fixedDelayString = "${myblog.purge.interval-ms:200}")
+    public void reap() {
+        for (int i = 0; i < properties.batchesPerRun(); i++) {
+            if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> step()))) return;
+        }
+    }
+
+    private boolean step() {
+        List<Task> tasks = jdbcTemplate.query(NEXT_TASK, (rs, rowNum) -> new Task(rs.getLong("id"),
+                PurgeTarget.valueOf(rs.getString("target")), rs.getLong("target_id"),
+                PurgePhase.valueOf(rs.getString("phase"))));
+        if (tasks.isEmpty()) return false;
+        Task task = tasks.getFirst();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        int rows = purge(task);
+        if (rows > 0) {
+            purged.get(task.phase()).increment(rows);
+            jdbcTemplate.update("update purge_tasks set purged_rows = purged_rows + ?, updated_at = ? where id = ?",
+                    rows, now, task.id());
+            return true;
+        }
+        PurgePhase next = task.target().after(task.phase());
+        if (next == null) {
+            jdbcTemplate.update("update purge_tasks set finished_at = ?, updated_at = ? where id = ?",
+                    now, now, task.id());
+            log.info("Удаление {} {} завершено", task.target(), task.targetId());
+        } else {
+            jdbcTemplate.update("update purge_tasks set phase = ?, updated_at = ? where id = ?",
+                    next.name(), now, task.id());
+        }
+        return true;
+    }
+
+    private int purge(Task task) {
+        long id = task.targetId();
+        int limit = properties.batchSize();
+        boolean post = task.target() == PurgeTarget.POST;
+        return switch (task.phase()) {
+            case POSTS -> hidePosts(id, limit);
+            case LIKES -> post ? jdbcTemplate.update(DELETE_POST_LIKES, id, limit) : deleteUserLikes(id, limit);
+            case COMMENTS -> post ? jdbcTemplate.update(DELETE_POST_COMMENTS, id, limit) : deleteUserComments(id, limit);
+            case FOLLOWS -> jdbcTemplate.update(DELETE_FOLLOWING, id, limit) + jdbcTemplate.update(DELETE_FOLLOWERS, id, limit);
+            case AWAIT_POSTS -> 0;
+            case ROW -> jdbcTemplate.update(post ? "delete from posts where id = ?" : "delete from users where id = ?", id);
+        };
+    }
+
+    private int hidePosts(long userId, int limit) {
+        List<Long> postIds = jdbcTemplate.queryForList(USER_POSTS, Long.class, userId, limit);
+        if (postIds.isEmpty()) return 0;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> hide = new ArrayList<>(postIds.size());
+        List<Object[]> tasks = new ArrayList<>(postIds.size());
+        for (Long postId : postIds) {
+            hide.add(new Object[]{now, postId});
+            tasks.add(new Object[]{PurgeTarget.POST.name(), postId, PurgeTarget.POST.first().name()});
+        }
+        jdbcTemplate.batchUpdate("update posts set deleted_at = ? where id = ?", hide);
+        jdbcTemplate.batchUpdate(INSERT_TASK, tasks);
+        // ленты уже не показывают эти посты, здесь они пропадают и из обращений по id
+        postIds.forEach(idPresence::postDeleted);
+        AfterCommit.run(() -> postIds.forEach(postId -> {
+            likeCounterBuffer.forget(postId);
+            trendingIndex.remove(postId);
+            likeIndex.postDeleted(postId);
+            readValidators.postDeleted(postId);
+        }));
+        return postIds.size();
+    }
+
+    // лайки пользователя стоят на чужих постах, поэтому вместе с ними уменьшаем likes_count
+    private int deleteUserLikes(long userId, int limit) {
+        List<Object[]> likes = new ArrayList<>();
+        Map<Long, Long> perPost = new HashMap<>();
+        jdbcTemplate.query(USER_LIKES, rs -> {
+            likes.add(new Object[]{rs.getLong("id")});
+            perPost.merge(rs.getLong("post_id"), 1L, Long::sum);
+        }, userId, limit);
+        if (likes.isEmpty()) return 0;
+        jdbcTemplate.batchUpdate("delete from likes where id = ?", likes);
+        jdbcTemplate.batchUpdate("update posts set likes_count = likes_count - ? where id = ?",
+                perPost.entrySet().stream().map(e -> new Object[]{e.getValue(), e.getKey()}).toList());
+        AfterCommit.run(() -> perPost.keySet().forEach(readValidators::likesChanged));
+        return likes.size();
+    }
+
+    // вместе с комментарием уходят и чужие ответы на него. Поддерево удаляется с листьев,
+    // не больше limit строк за батч, чтобы каскад по parent_id ничего не добирал сверх батча
+    private int deleteUserComments(long userId, int limit) {
+        List<UserComment> roots = jdbcTemplate.query(USER_COMMENTS,
+                (rs, rowNum) -> new UserComment(rs.getLong("id"), rs.getLong("post_id"),
+                        rs.getObject("parent_id", Long.class), rs.getString("path")),
+                userId, limit);
+        List<Long> removed = new ArrayList<>();
+        Set<Long> postIds = new HashSet<>();
+        List<Object[]> parents = new ArrayList<>();
+        for (UserComment root : roots) {
+            int budget = limit - removed.size();
+            if (budget <= 0) break;
+            List<Long> subtree = root.path() == null
+                    ? List.of(root.id())
+                    : jdbcTemplate.queryForList(SUBTREE_LEAVES_FIRST, Long.class, root.postId(), root.path(),
+                            Comment.pathUpperBound(root.path()), budget);
+            if (subtree.isEmpty()) continue;
+            jdbcTemplate.batchUpdate("delete from comments where id = ?",
+                    subtree.stream().map(id -> new Object[]{id}).toList());
+            removed.addAll(subtree);
+            postIds.add(root.postId());
+            if (subtree.contains(root.id()) && root.parentId() != null) parents.add(new Object[]{root.parentId()});
+        }
+        if (removed.isEmpty()) return 0;
+        // родитель, удалённый в этом же батче, просто не найдётся
+        jdbcTemplate.batchUpdate("update comments set reply_count = reply_count - 1 where id = ?", parents);
+        AfterCommit.run(() -> {
+            removed.forEach(searchService::removeComment);
+            postIds.forEach(readValidators::commentsChanged);
+        });
+        return removed.size();
+    }
+
+    private record UserComment(long id, long postId, Long parentId, String path) {
+    }
+
+    private record Task(long id, PurgeTarget target, long targetId, PurgePhase phase) {
+    }
+}
@@ -0,0 +1,25 @@
+package ru.kolidgio.myblog.service.purge;
+
+import java.util.List;
+
+public enum PurgeTarget {
+    POST(List.of(PurgePhase.LIKES, PurgePhase.COMMENTS, PurgePhase.ROW)),
+    // посты пользователя уходят отдельными задачами, строку users удаляем только после них
+    USER(List.of(PurgePhase.POSTS, PurgePhase.LIKES, PurgePhase.COMMENTS, PurgePhase.FOLLOWS,
+            PurgePhase.AWAIT_POSTS, PurgePhase.ROW));
+
+    private final List<PurgePhase> phases;
+
+    PurgeTarget(List<PurgePhase> phases) {
+        this.phases = phases;
+    }
+
+    public PurgePhase first() {
+        return phases.getFirst();
+    }
+
+    public PurgePhase after(PurgePhase phase) {
+        int next = phases.indexOf(phase) + 1;
+        return next < phases.size() ? phases.get(next) : null;
+    }
+}
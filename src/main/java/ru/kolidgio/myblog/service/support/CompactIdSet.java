@@ -0,0 +1,315 @@
+package ru.kolidgio.myblog.service.support;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+// Roaring-style набор неотрицательных id: старшие биты выбирают контейнер,
+// младшие 16 бит хранятся либо отсортированным массивом (до 4096 значений), либо битовой картой на 65536 бит.
+public class CompactIdSet {
+    private static final int ARRAY_LIMIT = 4096;
+    // на случай совпадения identityHashCode у двух наборов
+    private static final Object TIE_LOCK = new Object();
+
+    private final TreeMap<Long, Container> containers = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long cardinality;
+
+    public boolean add(long id) {
+        requireNonNegative(id);
+        lock.writeLock().lock();
+        try {
+            Container container = containers.get(id >>> 16);
+            if (container == null) {
+                container = new ArrayContainer();
+            }
+            Container updated = container.add((char) id);
+            if (updated == null) return false;
+            containers.put(id >>> 16, updated);
+            cardinality++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(long id) {
+        if (id < 0) return false;
+        lock.writeLock().lock();
+        try {
+            Container container = containers.get(id >>> 16);
+            if (container == null) return false;
+            Container updated = container.remove((char) id);
+            if (updated == null) return false;
+            if (updated.cardinality() == 0) {
+                containers.remove(id >>> 16);
+            } else {
+                containers.put(id >>> 16, updated);
+            }
+            cardinality--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(long id) {
+        if (id < 0) return false;
+        lock.readLock().lock();
+        try {
+            Container container = containers.get(id >>> 16);
+            return container != null && container.contains((char) id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long cardinality() {
+        lock.readLock().lock();
+        try {
+            return cardinality;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void forEach(LongConsumer action) {
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Long, Container> entry : containers.entrySet()) {
+                long high = entry.getKey() << 16;
+                entry.getValue().forEach(low -> action.accept(high | low));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] toArray() {
+        lock.readLock().lock();
+        try {
+            long[] ids = new long[Math.toIntExact(cardinality)];
+            int[] i = {0};
+            forEach(id -> ids[i[0]++] = id);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public CompactIdSet and(CompactIdSet other) {
+        if (other == this) {
+            CompactIdSet result = new CompactIdSet();
+            forEach(result::add);
+            return result;
+        }
+        // блокировки берём в глобальном порядке, иначе a.and(b) и b.and(a) при ожидающих писателях дают deadlock
+        int order = Integer.compare(System.identityHashCode(this), System.identityHashCode(other));
+        if (order == 0) {
+            synchronized (TIE_LOCK) {
+                return intersect(this, other);
+            }
+        }
+        return order < 0 ? intersect(this, other) : intersect(other, this);
+    }
+
+    // блокировка first берётся первой
+    private static CompactIdSet intersect(CompactIdSet first, CompactIdSet second) {
+        CompactIdSet result = new CompactIdSet();
+        first.lock.readLock().lock();
+        second.lock.readLock().lock();
+        try {
+            TreeMap<Long, Container> smaller = first.containers.size() <= second.containers.size()
+                    ? first.containers : second.containers;
+            TreeMap<Long, Container> larger = smaller == first.containers ? second.containers : first.containers;
+            for (Map.Entry<Long, Container> entry : smaller.entrySet()) {
+                Container match = larger.get(entry.getKey());
+                if (match == null) continue;
+                Container common = entry.getValue().and(match);
+                if (common.cardinality() > 0) {
+                    result.containers.put(entry.getKey(), common);
+                    result.cardinality += common.cardinality();
+                }
+            }
+            return result;
+        } finally {
+            second.lock.readLock().unlock();
+            first.lock.readLock().unlock();
+        }
+    }
+
+    public long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            return containers.values().stream().mapToLong(Container::sizeInBytes).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void requireNonNegative(long id) {
+        if (id < 0) throw new IllegalArgumentException("id должен быть >= 0: " + id);
+    }
+
+    private interface Container {
+        // null, если набор не изменился; иначе контейнер, который нужно хранить дальше
+        Container add(char low);
+
+        Container remove(char low);
+
+        boolean contains(char low);
+
+        Container and(Container other);
+
+        int cardinality();
+
+        void forEach(LongConsumer action);
+
+        long sizeInBytes();
+    }
+
+    private static final class ArrayContainer implements Container {
+        private char[] values = new char[4];
+        private int size;
+
+        @Override
+        public Container add(char low) {
+            int index = Arrays.binarySearch(values, 0, size, low);
+            if (index >= 0) return null;
+            if (size == ARRAY_LIMIT) {
+                BitmapContainer bitmap = new BitmapContainer();
+                for (int i = 0; i < size; i++) {
+                    bitmap.add(values[i]);
+                }
+                bitmap.add(low);
+                return bitmap;
+            }
+            int insertAt = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, size * 2));
+            }
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            values[insertAt] = low;
+            size++;
+            return this;
+        }
+
+        @Override
+        public Container remove(char low) {
+            int index = Arrays.binarySearch(values, 0, size, low);
+            if (index < 0) return null;
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return this;
+        }
+
+        @Override
+        public boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        @Override
+        public Container and(Container other) {
+            ArrayContainer common = new ArrayContainer();
+            common.values = new char[size];
+            for (int i = 0; i < size; i++) {
+                if (other.contains(values[i])) {
+                    common.values[common.size++] = values[i];
+                }
+            }
+            return common;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        @Override
+        public void forEach(LongConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(values[i]);
+            }
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return (long) values.length * Character.BYTES;
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+        private final long[] words = new long[1024];
+        private int cardinality;
+
+        @Override
+        public Container add(char low) {
+            long bit = 1L << low;
+            int word = low >>> 6;
+            if ((words[word] & bit) != 0) return null;
+            words[word] |= bit;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        public Container remove(char low) {
+            long bit = 1L << low;
+            int word = low >>> 6;
+            if ((words[word] & bit) == 0) return null;
+            words[word] &= ~bit;
+            cardinality--;
+            if (cardinality > ARRAY_LIMIT) return this;
+            ArrayContainer array = new ArrayContainer();
+            forEach(value -> array.add((char) value));
+            return array;
+        }
+
+        @Override
+        public boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        public Container and(Container other) {
+            if (!(other instanceof BitmapContainer bitmap)) {
+                return other.and(this);
+            }
+            BitmapContainer common = new BitmapContainer();
+            for (int i = 0; i < words.length; i++) {
+                common.words[i] = words[i] & bitmap.words[i];
+                common.cardinality += Long.bitCount(common.words[i]);
+            }
+            if (common.cardinality > ARRAY_LIMIT) return common;
+            ArrayContainer array = new ArrayContainer();
+            array.values = new char[Math.max(1, common.cardinality)];
+            common.forEach(value -> array.values[array.size++] = (char) value);
+            return array;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public void forEach(LongConsumer action) {
+            for (int word = 0; word < words.length; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    int bit = Long.numberOfTrailingZeros(bits);
+                    action.accept(((long) word << 6) | bit);
+                    bits &= bits - 1;
+                }
+            }
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return (long) words.length * Long.BYTES;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ru.kolidgio.myblog.service.support;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+public class SequenceAllocators {
+    @Bean
+    public SequenceBlockAllocator commentIds(JdbcTemplate jdbcTemplate) {
+        return new SequenceBlockAllocator(jdbcTemplate, "comments_seq");
+    }
+}
@@ -0,0 +1,51 @@
+package ru.kolidgio.myblog.service.support;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+// Размер блока — это increment последовательности из схемы: он задан только в schema.sql.
+public class SequenceBlockAllocator {
+    private static final String INCREMENT_SQL = "select * from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_NAME = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sequence;
+    private long blockSize;
+    private long next = 1;
+    private long high = 0;
+
+    public SequenceBlockAllocator(JdbcTemplate jdbcTemplate, String sequence) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequence = sequence;
+    }
+
+    public synchronized long next() {
+        if (next > high) {
+            high = nextValue();
+            next = Math.max(1, high - blockSize() + 1);
+        }
+        return next++;
+    }
+
+    public synchronized void reserveAbove(long maxId) {
+        if (nextValue() < maxId + blockSize()) {
+            jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (maxId + blockSize()));
+        }
+    }
+
+    // схема может ещё не быть создана при создании бина, поэтому читаем при первом обращении
+    private long blockSize() {
+        if (blockSize == 0) {
+            List<Long> increments = jdbcTemplate.query(INCREMENT_SQL, (rs, i) -> rs.getLong("increment"), sequence);
+            if (increments.isEmpty() || increments.get(0) <= 0) {
+                throw new IllegalStateException("Последовательность " + sequence + " не найдена в схеме");
+            }
+            blockSize = increments.get(0);
+        }
+        return blockSize;
+    }
+
+    private long nextValue() {
+        return jdbcTemplate.queryForObject("select nextval('" + sequence + "')", Long.class);
+    }
+}
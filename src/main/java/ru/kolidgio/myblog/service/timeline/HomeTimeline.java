@@ -0,0 +1,4 @@
+package ru.kolidgio.myblog.service.timeline;
+
+public record HomeTimeline(TimelineBuffer buffer, long[] celebrityFolloweeIds) {
+}
@@ -0,0 +1,69 @@
+package ru.kolidgio.myblog.service.timeline;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.kolidgio.myblog.repository.FollowRepository;
+import ru.kolidgio.myblog.repository.PostRepository;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Component
+public class HomeTimelineStore {
+    private final FollowRepository followRepository;
+    private final PostRepository postRepository;
+    private final TimelineProperties properties;
+    private final Cache<Long, HomeTimeline> timelines;
+
+    public HomeTimelineStore(FollowRepository followRepository, PostRepository postRepository,
+                             TimelineProperties properties) {
+        this.followRepository = followRepository;
+        this.postRepository = postRepository;
+        this.properties = properties;
+        this.timelines = Caffeine.newBuilder()
+                .maximumSize(properties.maxTimelines())
+                .expireAfterAccess(properties.expireAfterAccess())
+                .build();
+    }
+
+    public HomeTimeline get(Long userId) {
+        return timelines.get(userId, this::load);
+    }
+
+    public void fanOut(Long authorId, Long postId) {
+        if (timelines.estimatedSize() == 0) return;
+        if (followRepository.countByFollowee_Id(authorId) > properties.celebrityFollowers()) return;
+        for (Long followerId : followRepository.findFollowerIds(authorId)) {
+            HomeTimeline timeline = timelines.getIfPresent(followerId);
+            if (timeline != null) {
+                timeline.buffer().push(postId);
+            }
+        }
+    }
+
+    public void invalidate(Long userId) {
+        timelines.invalidate(userId);
+    }
+
+    private HomeTimeline load(Long userId) {
+        TimelineBuffer buffer = new TimelineBuffer(properties.capacity());
+        List<Long> followees = followRepository.findFolloweeIds(userId);
+        if (followees.isEmpty()) {
+            return new HomeTimeline(buffer, new long[0]);
+        }
+        Set<Long> celebrities = new HashSet<>(
+                followRepository.findFolloweesWithMoreFollowersThan(followees, properties.celebrityFollowers()));
+        List<Long> regular = followees.stream().filter(id -> !celebrities.contains(id)).toList();
+        if (!regular.isEmpty()) {
+            List<Long> recent = postRepository.findIdsByAuthorsBefore(
+                    regular, Long.MAX_VALUE, PageRequest.of(0, properties.capacity()));
+            for (int i = recent.size() - 1; i >= 0; i--) {
+                buffer.push(recent.get(i));
+            }
+        }
+        return new HomeTimeline(buffer, celebrities.stream().mapToLong(Long::longValue).toArray());
+    }
+}
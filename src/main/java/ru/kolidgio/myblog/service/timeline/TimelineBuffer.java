@@ -0,0 +1,65 @@
+package ru.kolidgio.myblog.service.timeline;
+
+// Кольцо id постов, упорядоченное по возрастанию: start указывает на самый старый.
+// Новые посты почти всегда больше последнего и дописываются в конец; before — бинарный поиск без копий и сортировки.
+public class TimelineBuffer {
+    private final long[] ids;
+    private int start;
+    private int size;
+
+    public TimelineBuffer(int capacity) {
+        this.ids = new long[capacity];
+    }
+
+    public synchronized void push(long postId) {
+        int at = lowerBound(postId);
+        if (at < size && get(at) == postId) return;
+        if (size == ids.length) {
+            // буфер полон: пост старее всех хранимых не нужен, иначе вытесняем самый старый
+            if (at == 0) return;
+            start = (start + 1) % ids.length;
+            size--;
+            at--;
+        }
+        for (int i = size; i > at; i--) {
+            set(i, get(i - 1));
+        }
+        set(at, postId);
+        size++;
+    }
+
+    // до limit id меньше beforeId, от новых к старым
+    public synchronized long[] before(long beforeId, int limit) {
+        int end = lowerBound(beforeId);
+        int n = Math.max(0, Math.min(limit, end));
+        long[] newest = new long[n];
+        for (int i = 0; i < n; i++) {
+            newest[i] = get(end - 1 - i);
+        }
+        return newest;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // первая позиция, где id >= value
+    private int lowerBound(long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (get(mid) < value) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private long get(int index) {
+        return ids[(start + index) % ids.length];
+    }
+
+    private void set(int index, long value) {
+        ids[(start + index) % ids.length] = value;
+    }
+}
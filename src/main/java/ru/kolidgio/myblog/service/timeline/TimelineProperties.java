@@ -0,0 +1,9 @@
+package ru.kolidgio.myblog.service.timeline;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "myblog.timeline")
+public record TimelineProperties(int capacity, long maxTimelines, Duration expireAfterAccess, long celebrityFollowers) {
+}
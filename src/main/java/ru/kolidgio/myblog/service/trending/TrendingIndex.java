@@ -0,0 +1,133 @@
+package ru.kolidgio.myblog.service.trending;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Forward decay: событие в момент t добавляет weight * e^(λ(t - landmark)),
+// поэтому старые очки не пересчитываются; rebase сдвигает landmark, чтобы экспонента не росла.
+@Component
+public class TrendingIndex {
+    private static final Comparator<TrendingPost> BY_SCORE =
+            Comparator.comparingDouble(TrendingPost::score).thenComparing(TrendingPost::postId);
+    private static final double NEGLIGIBLE = 1e-3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TrendingProperties properties;
+    private final double lambda;
+    private final Map<Long, Double> scores = new ConcurrentHashMap<>();
+    private final ReadWriteLock landmarkLock = new ReentrantReadWriteLock();
+    private volatile long landmarkMillis = System.currentTimeMillis();
+    private volatile List<TrendingPost> top = List.of();
+
+    public TrendingIndex(JdbcTemplate jdbcTemplate, TrendingProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.lambda = Math.log(2) / properties.halfLife().toMillis();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Instant since = Instant.now().minus(properties.halfLife().multipliedBy(4));
+        jdbcTemplate.query("""
+                        select p.id, p.created_at, p.likes_count,
+                               (select count(*) from comments c where c.post_id = p.id) as comments_count
+                        from posts p
+                        where p.created_at >= ? and p.deleted_at is null
+                        """,
+                rs -> {
+                    long at = rs.getTimestamp("created_at").getTime();
+                    double weight = rs.getLong("likes_count") * properties.likeWeight()
+                            + rs.getLong("comments_count") * properties.commentWeight();
+                    add(rs.getLong("id"), weight, at);
+                },
+                Timestamp.from(since));
+        refresh();
+    }
+
+    public void recordLike(Long postId, long delta) {
+        add(postId, delta * properties.likeWeight(), System.currentTimeMillis());
+    }
+
+    public void recordComment(Long postId) {
+        add(postId, properties.commentWeight(), System.currentTimeMillis());
+    }
+
+    public void remove(Long postId) {
+        scores.remove(postId);
+        List<TrendingPost> current = top;
+        if (current.stream().anyMatch(p -> p.postId().equals(postId))) {
+            top = current.stream().filter(p -> !p.postId().equals(postId)).toList();
+        }
+    }
+
+    public List<TrendingPost> top(int limit) {
+        List<TrendingPost> current = top;
+        return current.size() <= limit ? current : current.subList(0, limit);
+    }
+
+    @Scheduled(fixedDelayString = "${myblog.trending.refresh-interval-ms:1000}")
+    public void refresh() {
+        PriorityQueue<TrendingPost> heap = new PriorityQueue<>(properties.topK() + 1, BY_SCORE);
+        double scale;
+        landmarkLock.readLock().lock();
+        try {
+            scale = Math.exp(-lambda * (System.currentTimeMillis() - landmarkMillis));
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                double score = entry.getValue();
+                if (score <= 0) continue;
+                if (heap.size() < properties.topK()) {
+                    heap.add(new TrendingPost(entry.getKey(), score));
+                } else if (score > heap.peek().score()) {
+                    heap.poll();
+                    heap.add(new TrendingPost(entry.getKey(), score));
+                }
+            }
+        } finally {
+            landmarkLock.readLock().unlock();
+        }
+        List<TrendingPost> ranked = new ArrayList<>(heap.size());
+        for (TrendingPost post : heap) {
+            ranked.add(new TrendingPost(post.postId(), post.score() * scale));
+        }
+        ranked.sort(BY_SCORE.reversed());
+        top = List.copyOf(ranked);
+    }
+
+    @Scheduled(fixedDelayString = "${myblog.trending.rebase-interval-ms:600000}")
+    public void rebase() {
+        landmarkLock.writeLock().lock();
+        try {
+            long now = System.currentTimeMillis();
+            double scale = Math.exp(-lambda * (now - landmarkMillis));
+            scores.replaceAll((id, score) -> score * scale);
+            scores.values().removeIf(score -> Math.abs(score) < NEGLIGIBLE);
+            landmarkMillis = now;
+        } finally {
+            landmarkLock.writeLock().unlock();
+        }
+    }
+
+    private void add(Long postId, double weight, long atMillis) {
+        if (weight == 0) return;
+        landmarkLock.readLock().lock();
+        try {
+            scores.merge(postId, weight * Math.exp(lambda * (atMillis - landmarkMillis)), Double::sum);
+        } finally {
+            landmarkLock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package ru.kolidgio.myblog.service.trending;
+
+public record TrendingPost(Long postId, double score) {
+}
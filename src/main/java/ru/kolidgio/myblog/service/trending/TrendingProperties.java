@@ -0,0 +1,9 @@
+package ru.kolidgio.myblog.service.trending;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "myblog.trending")
+public record TrendingProperties(Duration halfLife, int topK, double likeWeight, double commentWeight) {
+}
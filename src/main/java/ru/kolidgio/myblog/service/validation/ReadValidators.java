@@ -0,0 +1,141 @@
+package ru.kolidgio.myblog.service.validation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.kolidgio.myblog.bulk.BulkImportCompleted;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Валидаторы выдаются без обращения к БД. Всё, что не менялось с момента старта (или было вытеснено),
+// получает общую отметку floor: она не меньше любой выданной ранее, так что 304 не бывает ложным.
+// Лента показывает счётчики и likedByMe, поэтому её ETag учитывает и общую отметку activity
+// (любой лайк или комментарий), и зрителя. Отметки поднимаются после коммита записи, а не из outbox.
+@Component
+public class ReadValidators {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicReference<Stamp> floor;
+    private final AtomicReference<Stamp> feed;
+    private final AtomicReference<Stamp> activity;
+    private final Cache<Long, Stamp> posts;
+    private final Cache<Long, Stamp> comments;
+    private final Cache<Long, Stamp> counters;
+
+    public ReadValidators(ValidatorProperties properties) {
+        Stamp start = next(System.currentTimeMillis());
+        this.floor = new AtomicReference<>(start);
+        this.feed = new AtomicReference<>(start);
+        this.activity = new AtomicReference<>(start);
+        this.posts = tracked(properties.maxTracked());
+        this.comments = tracked(properties.maxTracked());
+        this.counters = tracked(properties.maxTracked());
+    }
+
+    public Validator post(long postId) {
+        return validator("p" + postId, stampOf(posts, postId));
+    }
+
+    public Validator comments(long postId) {
+        return validator("c" + postId, stampOf(comments, postId));
+    }
+
+    // страница поста показывает сам пост, комментарии и счётчики; версии растут монотонно, берём старшую
+    public Validator postPage(long postId) {
+        return validator("pp" + postId,
+                newest(newest(stampOf(posts, postId), stampOf(comments, postId)), stampOf(counters, postId)));
+    }
+
+    public Validator feed(Long viewerId) {
+        return validator(viewerId == null ? "f" : "fv" + viewerId, newest(feed.get(), activity.get()));
+    }
+
+    public void postChanged(long postId, LocalDateTime updatedAt) {
+        long at = updatedAt == null ? System.currentTimeMillis()
+                : updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        posts.put(postId, next(at));
+        feedChanged();
+    }
+
+    public void postDeleted(long postId) {
+        posts.put(postId, next(System.currentTimeMillis()));
+        comments.put(postId, next(System.currentTimeMillis()));
+        feedChanged();
+    }
+
+    public void commentsChanged(long postId) {
+        Stamp stamp = next(System.currentTimeMillis());
+        comments.put(postId, stamp);
+        raise(activity, stamp);
+    }
+
+    public void likesChanged(long postId) {
+        Stamp stamp = next(System.currentTimeMillis());
+        counters.put(postId, stamp);
+        raise(activity, stamp);
+    }
+
+    public void feedChanged() {
+        feed.set(next(System.currentTimeMillis()));
+    }
+
+    // смена имени пользователя или каскадное удаление затрагивают неизвестный набор постов
+    public void invalidateAll() {
+        Stamp stamp = next(System.currentTimeMillis());
+        raiseFloor(stamp);
+        feed.set(stamp);
+        raise(activity, stamp);
+        posts.invalidateAll();
+        comments.invalidateAll();
+        counters.invalidateAll();
+    }
+
+    @EventListener
+    public void onBulkImport(BulkImportCompleted event) {
+        invalidateAll();
+    }
+
+    private Stamp stampOf(Cache<Long, Stamp> cache, long id) {
+        Stamp stamp = cache.getIfPresent(id);
+        return stamp != null ? stamp : floor.get();
+    }
+
+    private static Stamp newest(Stamp a, Stamp b) {
+        return a.version() >= b.version() ? a : b;
+    }
+
+    private Validator validator(String key, Stamp stamp) {
+        return new Validator("\"" + key + "-" + epoch + "-" + stamp.version() + "\"", stamp.modifiedAt());
+    }
+
+    private Stamp next(long modifiedAt) {
+        return new Stamp(versions.incrementAndGet(), modifiedAt);
+    }
+
+    private void raiseFloor(Stamp stamp) {
+        raise(floor, stamp);
+    }
+
+    // параллельные записи не должны откатить отметку к более старой версии
+    private static void raise(AtomicReference<Stamp> ref, Stamp stamp) {
+        ref.accumulateAndGet(stamp, (a, b) -> new Stamp(Math.max(a.version(), b.version()),
+                Math.max(a.modifiedAt(), b.modifiedAt())));
+    }
+
+    private Cache<Long, Stamp> tracked(long maxSize) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .evictionListener((Long id, Stamp stamp, RemovalCause cause) -> {
+                    if (stamp != null) raiseFloor(stamp);
+                })
+                .build();
+    }
+
+    private record Stamp(long version, long modifiedAt) {
+    }
+}
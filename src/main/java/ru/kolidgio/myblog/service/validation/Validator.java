@@ -0,0 +1,10 @@
+package ru.kolidgio.myblog.service.validation;
+
+import org.springframework.web.context.request.WebRequest;
+
+public record Validator(String etag, long lastModified) {
+
+    public boolean notModified(WebRequest request) {
+        return request.checkNotModified(etag, lastModified);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.kolidgio.myblog.service.validation;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "myblog.validators")
+public record ValidatorProperties(long maxTracked) {
+}
@@ -0,0 +1,16 @@
+package ru.kolidgio.myblog.view;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+// закодированный в UTF-8 HTML из FragmentCache; пишется в ответ как есть, без декодирования в String
+public record Fragment(ByteBuffer html) {
+
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer view = html.duplicate();
+        while (view.hasRemaining()) {
+            channel.write(view);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ru.kolidgio.myblog.view;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.kolidgio.myblog.bulk.BulkImportCompleted;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+// готовый HTML хранится вне кучи; версия входит в ключ, поэтому устаревшие фрагменты просто вытесняются
+@Component
+public class FragmentCache {
+    private final Cache<FragmentKey, ByteBuffer> fragments;
+
+    public FragmentCache(FragmentProperties properties, MeterRegistry registry) {
+        this.fragments = Caffeine.newBuilder()
+                .maximumWeight(properties.maxBytes())
+                .weigher((FragmentKey key, ByteBuffer html) -> html.capacity())
+                .recordStats()
+                .build();
+        // тот же набор тегов, что у кэшей из CacheManager: иначе в Prometheus конфликтуют семейства метрик
+        CaffeineCacheMetrics.monitor(registry, fragments, "fragments", "cache.manager", "fragmentCache");
+    }
+
+    public Fragment get(FragmentKey key, Supplier<String> renderer) {
+        return new Fragment(fragments.get(key, k -> encode(renderer.get())));
+    }
+
+    @EventListener
+    public void onBulkImport(BulkImportCompleted event) {
+        fragments.invalidateAll();
+    }
+
+    private static ByteBuffer encode(String html) {
+        byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip().asReadOnlyBuffer();
+    }
+}
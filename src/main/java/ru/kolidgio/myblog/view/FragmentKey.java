@@ -0,0 +1,10 @@
+package ru.kolidgio.myblog.view;
+
+public record FragmentKey(Kind kind, long id, String version) {
+
+    public enum Kind {
+        POST_BODY,
+        POST_CARD,
+        COMMENTS
+    }
+}
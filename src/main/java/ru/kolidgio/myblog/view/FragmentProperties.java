@@ -0,0 +1,7 @@
+package ru.kolidgio.myblog.view;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "myblog.fragments")
+public record FragmentProperties(long maxBytes, int commentsPerPage) {
+}
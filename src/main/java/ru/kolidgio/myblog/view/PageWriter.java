@@ -0,0 +1,59 @@
+package ru.kolidgio.myblog.view;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+// Шаблон страницы рендерится с метками на месте фрагментов, затем куски страницы и байты фрагментов
+// пишутся в ответ по очереди. Пользовательский текст в шаблоне экранируется, поэтому метку он подделать не может.
+@Component
+@RequiredArgsConstructor
+public class PageWriter {
+    private final ITemplateEngine templateEngine;
+
+    public static String slot(int index) {
+        return "<!--fragment-" + index + "-->";
+    }
+
+    public void write(String template, Map<String, Object> variables, List<Fragment> fragments,
+                      HttpServletResponse response) throws IOException {
+        Context context = new Context();
+        context.setVariables(variables);
+        String page = templateEngine.process(template, context);
+
+        response.setContentType(MediaType.TEXT_HTML_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+        int from = 0;
+        for (int i = 0; i < fragments.size(); i++) {
+            String slot = slot(i);
+            int at = page.indexOf(slot, from);
+            if (at < 0) throw new IllegalStateException("В шаблоне " + template + " нет места для фрагмента " + i);
+            writeText(channel, page.substring(from, at));
+            fragments.get(i).writeTo(channel);
+            from = at + slot.length();
+        }
+        writeText(channel, page.substring(from));
+    }
+
+    private static void writeText(WritableByteChannel channel, String text) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+}
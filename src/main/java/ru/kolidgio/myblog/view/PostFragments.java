@@ -0,0 +1,67 @@
+package ru.kolidgio.myblog.view;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+import ru.kolidgio.myblog.dto.comment.CommentView;
+import ru.kolidgio.myblog.dto.post.PostFeedItem;
+import ru.kolidgio.myblog.repository.PostRepository;
+import ru.kolidgio.myblog.service.CommentService;
+import ru.kolidgio.myblog.service.paging.CursorSlice;
+import ru.kolidgio.myblog.service.validation.ReadValidators;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+public class PostFragments {
+    private final ITemplateEngine templateEngine;
+    private final FragmentCache fragmentCache;
+    private final PostRepository postRepository;
+    private final CommentService commentService;
+    private final ReadValidators readValidators;
+    private final FragmentProperties properties;
+
+    public Fragment body(long postId, LocalDateTime updatedAt) {
+        FragmentKey key = new FragmentKey(FragmentKey.Kind.POST_BODY, postId, String.valueOf(updatedAt));
+        return fragmentCache.get(key, () -> {
+            String content = postRepository.findContentById(postId).orElse("");
+            return render("fragments/post-body", Map.of("paragraphs", paragraphs(content)));
+        });
+    }
+
+    public Fragment card(PostFeedItem post) {
+        FragmentKey key = new FragmentKey(FragmentKey.Kind.POST_CARD, post.id(), String.valueOf(post.updatedAt()));
+        return fragmentCache.get(key, () -> render("fragments/post-card", Map.of("post", post)));
+    }
+
+    // версия блока комментариев берётся из валидатора: он меняется и при переименовании авторов
+    public Fragment comments(long postId) {
+        FragmentKey key = new FragmentKey(FragmentKey.Kind.COMMENTS, postId, readValidators.comments(postId).etag());
+        return fragmentCache.get(key, () -> {
+            CursorSlice<CommentView> slice = commentService.feed(postId, null, properties.commentsPerPage());
+            List<CommentView> comments = slice.slice().getContent();
+            return render("fragments/comments", Map.of(
+                    "postId", postId,
+                    "comments", comments,
+                    "nextCursor", slice.nextCursor() == null ? "" : slice.nextCursor()));
+        });
+    }
+
+    private String render(String template, Map<String, Object> variables) {
+        Context context = new Context();
+        context.setVariables(variables);
+        return templateEngine.process(template, context);
+    }
+
+    private static List<String> paragraphs(String content) {
+        return Arrays.stream(content.replace("\r\n", "\n").split("\n{2,}"))
+                .map(String::strip)
+                .filter(p -> !p.isEmpty())
+                .toList();
+    }
+}
@@ -8,12 +8,13 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.kolidgio.myblog.service.errors.BadRequestException;
 import ru.kolidgio.myblog.service.errors.ConflictException;
 import ru.kolidgio.myblog.service.errors.NotFoundException;
+import ru.kolidgio.myblog.service.errors.TooManyRequestsException;
 
 @RestControllerAdvice
 public class ApiExceptionHandler {
     @ExceptionHandler(BadRequestException.class)
     public ProblemDetail handleBadRequest(BadRequestException ex, HttpServletRequest req) {
-        return problem(HttpStatus.NOT_FOUND, ex.getMessage(), req.getRequestURI());
+        return problem(HttpStatus.BAD_REQUEST, ex.getMessage(), req.getRequestURI());
     }
 
     @ExceptionHandler(NotFoundException.class)
@@ -25,6 +26,11 @@ public class ApiExceptionHandler {
         return problem(HttpStatus.CONFLICT, ex.getMessage(), req.getRequestURI());
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ProblemDetail handleTooManyRequests(TooManyRequestsException ex, HttpServletRequest req) {
+        return problem(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage(), req.getRequestURI());
+    }
+
     private static ProblemDetail problem(HttpStatus status, String detail, String path) {
         ProblemDetail pd = ProblemDetail.forStatusAndDetail(status, detail);
         pd.setTitle(status.getReasonPhrase());
@@ -0,0 +1,64 @@
+package ru.kolidgio.myblog.web;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.kolidgio.myblog.dto.CursorPage;
+import ru.kolidgio.myblog.dto.comment.CommentView;
+import ru.kolidgio.myblog.dto.post.PostFeedItem;
+import ru.kolidgio.myblog.model.Comment;
+import ru.kolidgio.myblog.service.CommentService;
+import ru.kolidgio.myblog.service.PostFeedService;
+import ru.kolidgio.myblog.service.paging.CursorSlice;
+import ru.kolidgio.myblog.service.validation.ReadValidators;
+
+@RestController
+@RequiredArgsConstructor
+public class FeedController {
+    private final PostFeedService postFeedService;
+    private final CommentService commentService;
+    private final ReadValidators readValidators;
+
+    @GetMapping("/api/posts")
+    public ResponseEntity<CursorPage<PostFeedItem>> feed(@RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "20") int size,
+                                                         @RequestParam(required = false) Long viewerId,
+                                                         WebRequest request) {
+        if (readValidators.feed(viewerId).notModified(request)) return null;
+        CursorSlice<PostFeedItem> slice = postFeedService.feed(cursor, size, viewerId);
+        return revalidated(new CursorPage<>(slice.slice().getContent(), slice.nextCursor()));
+    }
+
+    @GetMapping("/api/posts/{postId}/comments")
+    public ResponseEntity<CursorPage<CommentView>> comments(@PathVariable Long postId,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(defaultValue = "20") int size,
+                                                            WebRequest request) {
+        if (postId != null && readValidators.comments(postId).notModified(request)) return null;
+        CursorSlice<CommentView> slice = commentService.feed(postId, cursor, size);
+        return revalidated(new CursorPage<>(slice.slice().getContent(), slice.nextCursor()));
+    }
+
+    @GetMapping("/api/posts/{postId}/thread")
+    public ResponseEntity<CursorPage<CommentView>> thread(@PathVariable Long postId,
+                                                          @RequestParam(required = false) Long root,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "50") int size,
+                                                          @RequestParam(defaultValue = "3") int depth,
+                                                          WebRequest request) {
+        if (postId != null && readValidators.comments(postId).notModified(request)) return null;
+        CursorSlice<Comment> slice = commentService.thread(postId, root, cursor, size, depth);
+        return revalidated(new CursorPage<>(
+                slice.slice().getContent().stream().map(CommentView::from).toList(),
+                slice.nextCursor()));
+    }
+
+    private static <T> ResponseEntity<T> revalidated(T body) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(body);
+    }
+}
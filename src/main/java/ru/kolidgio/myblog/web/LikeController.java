@@ -0,0 +1,23 @@
+package ru.kolidgio.myblog.web;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import ru.kolidgio.myblog.dto.like.BulkLikeDto;
+import ru.kolidgio.myblog.dto.like.LikeStateResult;
+import ru.kolidgio.myblog.service.LikeService;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class LikeController {
+    private final LikeService likeService;
+
+    @PutMapping("/api/likes")
+    public List<LikeStateResult> setLikes(@Valid @RequestBody BulkLikeDto dto) {
+        return likeService.setLikes(dto);
+    }
+}
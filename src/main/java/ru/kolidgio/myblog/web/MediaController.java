@@ -0,0 +1,133 @@
+package ru.kolidgio.myblog.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import ru.kolidgio.myblog.dto.media.UploadedImage;
+import ru.kolidgio.myblog.media.ImageVariant;
+import ru.kolidgio.myblog.media.ImageVariantGenerator;
+import ru.kolidgio.myblog.media.MediaRef;
+import ru.kolidgio.myblog.media.MediaStore;
+import ru.kolidgio.myblog.service.errors.BadRequestException;
+import ru.kolidgio.myblog.service.errors.NotFoundException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class MediaController {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    private static final CacheControl PENDING = CacheControl.maxAge(Duration.ofSeconds(30)).cachePublic();
+
+    private final MediaStore mediaStore;
+    private final ImageVariantGenerator variantGenerator;
+
+    @PostMapping("/api/media")
+    public UploadedImage upload(@RequestParam("file") MultipartFile file) throws IOException {
+        if (file.isEmpty()) throw new BadRequestException("Файл пустой");
+        MediaRef ref;
+        try (InputStream in = file.getInputStream()) {
+            ref = mediaStore.store(in);
+        }
+        variantGenerator.submit(ref);
+        return new UploadedImage(ref.hash(), ref.url(), ref.withVariant(ImageVariant.THUMB).url());
+    }
+
+    @GetMapping("/media/{name}")
+    public void serve(@PathVariable String name, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        MediaRef requested = MediaRef.parse(name).orElseThrow(() -> new NotFoundException("Изображение не найдено"));
+        MediaRef served = requested;
+        Path file = mediaStore.find(requested).orElse(null);
+        if (file == null && requested.variant() != ImageVariant.ORIGINAL) {
+            // вариант ещё не готов: отдаём оригинал и ставим генерацию в очередь
+            served = mediaStore.findOriginal(requested).orElse(null);
+            if (served != null) {
+                variantGenerator.submit(served);
+                file = mediaStore.find(served).orElse(null);
+            }
+        }
+        if (file == null) throw new NotFoundException("Изображение не найдено");
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                (served == requested ? IMMUTABLE : PENDING).getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(served.etag())) return;
+        response.setContentType(served.format().contentType());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            long start = 0;
+            long end = length - 1;
+            HttpRange range = singleRange(request, served.etag());
+            if (range != null) {
+                try {
+                    start = range.getRangeStart(length);
+                    end = range.getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+            long count = end - start + 1;
+            response.setContentLengthLong(count);
+            if ("HEAD".equals(request.getMethod())) return;
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                // коннектор сам отдаст файл через sendfile после выхода из обработчика
+                request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+                return;
+            }
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) break;
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    // несколько диапазонов и устаревший If-Range обслуживаются целым файлом, как допускает RFC 9110
+    private static HttpRange singleRange(HttpServletRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) return null;
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) return null;
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
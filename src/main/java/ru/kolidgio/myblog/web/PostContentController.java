@@ -0,0 +1,46 @@
+package ru.kolidgio.myblog.web;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.kolidgio.myblog.service.PostContentService;
+import ru.kolidgio.myblog.service.validation.ReadValidators;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequiredArgsConstructor
+public class PostContentController {
+    private static final MediaType TEXT_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    private final PostContentService postContentService;
+    private final ReadValidators readValidators;
+
+    @GetMapping("/api/posts/{postId}/content")
+    public ResponseEntity<StreamingResponseBody> content(@PathVariable Long postId, WebRequest request) {
+        if (postId != null && readValidators.post(postId).notModified(request)) return null;
+        // первый кусок читаем до отправки заголовков, чтобы отсутствующий пост получил 404
+        PostContentService.Chunk first = postContentService.readChunk(postId, 0, null);
+        StreamingResponseBody body = out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            PostContentService.Chunk chunk = first;
+            long offset = 0;
+            while (true) {
+                writer.write(chunk.text());
+                writer.flush();
+                if (chunk.last()) return;
+                offset += chunk.text().length();
+                chunk = postContentService.readChunk(postId, offset, chunk.version());
+            }
+        };
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).contentType(TEXT_UTF8).body(body);
+    }
+}
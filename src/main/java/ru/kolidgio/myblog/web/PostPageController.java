@@ -0,0 +1,70 @@
+package ru.kolidgio.myblog.web;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import ru.kolidgio.myblog.dto.post.PostFeedItem;
+import ru.kolidgio.myblog.service.PostFeedService;
+import ru.kolidgio.myblog.service.paging.CursorSlice;
+import ru.kolidgio.myblog.service.validation.ReadValidators;
+import ru.kolidgio.myblog.view.Fragment;
+import ru.kolidgio.myblog.view.PageWriter;
+import ru.kolidgio.myblog.view.PostFragments;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Controller
+@RequiredArgsConstructor
+public class PostPageController {
+    private final PostFeedService postFeedService;
+    private final PostFragments postFragments;
+    private final PageWriter pageWriter;
+    private final ReadValidators readValidators;
+
+    @GetMapping("/")
+    public void feed(@RequestParam(required = false) String cursor,
+                     @RequestParam(defaultValue = "20") int size,
+                     @RequestParam(required = false) Long viewerId,
+                     WebRequest request,
+                     HttpServletResponse response) throws IOException {
+        if (readValidators.feed(viewerId).notModified(request)) return;
+        CursorSlice<PostFeedItem> slice = postFeedService.feed(cursor, size, viewerId);
+        List<Fragment> cards = new ArrayList<>();
+        List<FeedEntry> entries = new ArrayList<>();
+        for (PostFeedItem post : slice.slice().getContent()) {
+            entries.add(new FeedEntry(post, PageWriter.slot(cards.size())));
+            cards.add(postFragments.card(post));
+        }
+        Map<String, Object> model = new HashMap<>();
+        model.put("entries", entries);
+        model.put("nextCursor", slice.nextCursor());
+        model.put("viewerId", viewerId);
+        pageWriter.write("feed", model, cards, response);
+    }
+
+    @GetMapping("/posts/{postId}")
+    public void post(@PathVariable Long postId,
+                     @RequestParam(required = false) Long viewerId,
+                     WebRequest request,
+                     HttpServletResponse response) throws IOException {
+        if (postId != null && readValidators.postPage(postId).notModified(request)) return;
+        PostFeedItem post = postFeedService.item(postId, viewerId);
+        pageWriter.write("post", Map.of(
+                        "post", post,
+                        "bodySlot", PageWriter.slot(0),
+                        "commentsSlot", PageWriter.slot(1)),
+                List.of(postFragments.body(post.id(), post.updatedAt()), postFragments.comments(post.id())),
+                response);
+    }
+
+    public record FeedEntry(PostFeedItem post, String cardSlot) {
+    }
+}
@@ -0,0 +1,22 @@
+package ru.kolidgio.myblog.web;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.kolidgio.myblog.search.SearchHit;
+import ru.kolidgio.myblog.search.SearchService;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class SearchController {
+    private final SearchService searchService;
+
+    @GetMapping("/api/search")
+    public List<SearchHit> search(@RequestParam(required = false) String q,
+                                  @RequestParam(defaultValue = "20") int limit) {
+        return searchService.search(q, limit);
+    }
+}
@@ -1,4 +1,9 @@
 insert into posts(title, image_path, content, likes_count)
-values
-    ('Первый пост', null, 'Первый абзац.\n\nВторой абзац.', 2),
-    ('Второй пост', null, 'Текст второго поста.', 0);
\ No newline at end of file
+select v.title, v.image_path, v.content, v.likes_count
+from (values
+    ('Первый пост', cast(null as varchar(512)), 'Первый абзац.\n\nВторой абзац.', 2),
+    ('Второй пост', cast(null as varchar(512)), 'Текст второго поста.', 0)
+) as v(title, image_path, content, likes_count)
+where not exists (select 1 from posts);
+
+update comments set path = lpad(cast(id as varchar), 15, '0') where path is null;
@@ -1,24 +1,37 @@
+create sequence if not exists users_seq start with 1 increment by 50;
+create sequence if not exists posts_seq start with 1 increment by 50;
+create sequence if not exists likes_seq start with 1 increment by 50;
+create sequence if not exists comments_seq start with 1 increment by 50;
+create sequence if not exists follows_seq start with 1 increment by 50;
+create sequence if not exists outbox_seq start with 1 increment by 50;
+create sequence if not exists like_count_deltas_seq start with 1 increment by 50;
+create sequence if not exists purge_tasks_seq start with 1 increment by 50;
+
 create table if not exists users
 (
-    id       bigint generated by default as identity primary key,
+    id       bigint default nextval('users_seq') primary key,
     username varchar(255) not null unique,
     email    varchar(255) not null unique,
-    password varchar(255) not null
+    password varchar(255) not null,
+    deleted_at timestamp
 );
 
 create table if not exists posts
 (
-    id         bigint generated by default as identity primary key,
-    user_id    bigint references users (id) on delete cascade,
-    title      varchar(255) not null,
-    image_path varchar(512),
-    content    clob         not null,
-    created_at timestamp    not null default current_timestamp,
-    updated_at timestamp
+    id          bigint default nextval('posts_seq') primary key,
+    user_id     bigint references users (id) on delete cascade,
+    title       varchar(255) not null,
+    image_path  varchar(512),
+    content     text         not null,
+    excerpt     varchar(281),
+    likes_count bigint       not null default 0,
+    created_at  timestamp    not null default current_timestamp,
+    updated_at  timestamp,
+    deleted_at  timestamp
 );
 create table if not exists likes
 (
-    id      bigint generated by default as identity primary key,
+    id      bigint default nextval('likes_seq') primary key,
     user_id bigint references users (id) on delete cascade,
     post_id bigint references posts (id) on delete cascade,
     constraint uq_likes_user_post unique (user_id, post_id)
@@ -26,12 +39,73 @@ create table if not exists likes
 
 create table if not exists comments
 (
-    id         bigint generated by default as identity primary key,
+    id         bigint default nextval('comments_seq') primary key,
     user_id    bigint references users (id) on delete cascade,
     post_id    bigint references posts (id) on delete cascade,
-    content    clob      not null,
+    parent_id  bigint references comments (id) on delete cascade,
+    path       varchar(315),
+    depth      int       not null default 0,
+    reply_count bigint   not null default 0,
+    content    text      not null,
     created_at timestamp not null default current_timestamp,
     updated_at timestamp
 );
 
+alter table users add column if not exists deleted_at timestamp;
+alter table posts add column if not exists deleted_at timestamp;
+alter table comments add column if not exists parent_id bigint references comments (id) on delete cascade;
+alter table comments add column if not exists path varchar(315);
+alter table comments add column if not exists depth int not null default 0;
+alter table comments add column if not exists reply_count bigint not null default 0;
+
+create table if not exists follows
+(
+    id          bigint default nextval('follows_seq') primary key,
+    follower_id bigint    not null references users (id) on delete cascade,
+    followee_id bigint    not null references users (id) on delete cascade,
+    created_at  timestamp not null default current_timestamp,
+    constraint uq_follows_follower_followee unique (follower_id, followee_id)
+);
+
+create table if not exists outbox_events
+(
+    id           bigint default nextval('outbox_seq') primary key,
+    aggregate_id bigint      not null,
+    event_type   varchar(32) not null,
+    payload      text        not null,
+    attempts     int         not null default 0,
+    next_attempt_at timestamp,
+    created_at   timestamp   not null default current_timestamp
+);
+
+create table if not exists like_count_deltas
+(
+    id      bigint default nextval('like_count_deltas_seq') primary key,
+    post_id bigint not null,
+    delta   bigint not null
+);
+
+create table if not exists purge_tasks
+(
+    id           bigint default nextval('purge_tasks_seq') primary key,
+    target       varchar(16) not null,
+    target_id    bigint      not null,
+    phase        varchar(16) not null,
+    purged_rows  bigint      not null default 0,
+    created_at   timestamp   not null default current_timestamp,
+    updated_at   timestamp,
+    finished_at  timestamp,
+    constraint uq_purge_tasks_target unique (target, target_id)
+);
 
+create index if not exists idx_posts_created_id on posts (created_at desc, id desc);
+create index if not exists idx_posts_user_created_id on posts (user_id, created_at desc, id desc);
+create index if not exists idx_comments_post_created_id on comments (post_id, created_at, id);
+create index if not exists idx_posts_user_id on posts (user_id, id desc);
+create index if not exists idx_comments_user on comments (user_id);
+create index if not exists idx_comments_post_path on comments (post_id, path);
+create index if not exists idx_comments_parent on comments (parent_id);
+create index if not exists idx_likes_post_user on likes (post_id, user_id);
+drop index if exists idx_follows_followee;
+create index if not exists idx_follows_followee_follower on follows (followee_id, follower_id);
+create index if not exists idx_purge_tasks_pending on purge_tasks (finished_at, id);
@@ -0,0 +1,66 @@
+package ru.kolidgio.myblog.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvRecordReaderTests {
+
+    @Test
+    void mapsFieldsByHeader() throws IOException {
+        RecordReader reader = new CsvRecordReader(new StringReader("id,username\r\n1,anna\r\n2,bob"));
+
+        assertThat(reader.next()).containsExactly(Map.entry("id", "1"), Map.entry("username", "anna"));
+        assertThat(reader.next()).containsExactly(Map.entry("id", "2"), Map.entry("username", "bob"));
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void readsQuotedFieldsWithSeparatorsQuotesAndNewlines() throws IOException {
+        RecordReader reader = new CsvRecordReader(new StringReader(
+                "id,content\n1,\"a,b \"\"c\"\"\nd\"\n"));
+
+        assertThat(reader.next()).containsEntry("content", "a,b \"c\"\nd");
+    }
+
+    @Test
+    void distinguishesEmptyQuotedFieldFromMissingValue() throws IOException {
+        RecordReader reader = new CsvRecordReader(new StringReader("id,content\n,\"\"\n"));
+
+        Map<String, String> record = reader.next();
+        assertThat(record).containsEntry("content", "");
+        assertThat(record).containsKey("id");
+        assertThat(record.get("id")).isNull();
+    }
+
+    @Test
+    void skipsBlankLines() throws IOException {
+        RecordReader reader = new CsvRecordReader(new StringReader("id\n\n1\n\n"));
+
+        assertThat(reader.next()).containsEntry("id", "1");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void rejectsRecordWithWrongFieldCount() {
+        RecordReader reader = new CsvRecordReader(new StringReader("id,username\n1,anna,extra\n"));
+
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("CSV запись 1");
+    }
+
+    @Test
+    void rejectsUnclosedQuote() {
+        RecordReader reader = new CsvRecordReader(new StringReader("id,content\n1,\"abc\n"));
+
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Незакрытая кавычка");
+    }
+}
@@ -0,0 +1,67 @@
+package ru.kolidgio.myblog.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NdjsonRecordReaderTests {
+
+    @Test
+    void readsOneObjectPerLineAndSkipsBlankLines() throws IOException {
+        RecordReader reader = new NdjsonRecordReader(new StringReader("""
+                {"id": 1, "username": "anna", "deleted": null}
+
+                  {"id":2,"username":"bob"}\t
+                """));
+
+        Map<String, String> first = reader.next();
+        assertThat(first).containsEntry("id", "1").containsEntry("username", "anna");
+        assertThat(first).containsKey("deleted");
+        assertThat(first.get("deleted")).isNull();
+        assertThat(reader.next()).containsEntry("id", "2").containsEntry("username", "bob");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void decodesEscapes() throws IOException {
+        RecordReader reader = new NdjsonRecordReader(new StringReader(
+                "{\"content\":\"a\\\"b\\\\c\\nd\\u0416\"}\n"));
+
+        assertThat(reader.next()).containsEntry("content", "a\"b\\c\ndЖ");
+    }
+
+    @Test
+    void readsEmptyObject() throws IOException {
+        assertThat(new NdjsonRecordReader(new StringReader("{}")).next()).isEmpty();
+    }
+
+    @Test
+    void rejectsTrailingTokensAfterObject() {
+        RecordReader reader = new NdjsonRecordReader(new StringReader("{\"id\":1} {\"id\":2}\n"));
+
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("строка NDJSON 1");
+    }
+
+    @Test
+    void rejectsMalformedLines() {
+        for (String line : new String[]{"{\"id\":1", "[1,2]", "{\"id\" 1}", "{\"id\":}", "{\"s\":\"\\uZZZZ\"}"}) {
+            RecordReader reader = new NdjsonRecordReader(new StringReader(line));
+            assertThatThrownBy(reader::next).as(line).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void reportsLineNumberOfBadRecord() throws IOException {
+        RecordReader reader = new NdjsonRecordReader(new StringReader("{\"id\":1}\n\n{\"id\":2}}\n"));
+
+        assertThat(reader.next()).containsEntry("id", "1");
+        assertThatThrownBy(reader::next).hasMessageContaining("строка NDJSON 3");
+    }
+}
@@ -0,0 +1,197 @@
+package ru.kolidgio.myblog.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kolidgio.myblog.metrics.SqlStatementCounter;
+import ru.kolidgio.myblog.model.Comment;
+import ru.kolidgio.myblog.service.purge.PurgeReaper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Методы репозиториев вызываются по-настоящему, а EXPLAIN строится по SQL, который Hibernate отдал драйверу.
+// JDBC-запросы берутся из констант классов, которые их выполняют.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:queryplans;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.kolidgio.myblog.repository.QueryPlanTests$CapturingInspector"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTests {
+    private static final long BASE = 1_000_000;
+    private static final int USERS = 500;
+    private static final int POSTS = 5_000;
+    private static final int COMMENTS = 20_000;
+    private static final int LIKES = 20_000;
+    private static final int FOLLOWS = 5_000;
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private LikeRepository likeRepository;
+    @Autowired
+    private FollowRepository followRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeAll
+    void seed() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        batch("insert into users(id, username, email, password) values (?, ?, ?, ?)", USERS,
+                i -> new Object[]{BASE + i, "plan-user-" + i, "plan-user-" + i + "@example.com", "x"});
+        batch("insert into posts(id, user_id, title, content, excerpt, created_at) values (?, ?, ?, ?, ?, ?)", POSTS,
+                i -> new Object[]{BASE + i, BASE + i % USERS, "post " + i, "content " + i, "content " + i,
+                        Timestamp.valueOf(start.plusMinutes(i))});
+        batch("insert into comments(id, user_id, post_id, path, content, created_at, updated_at) values (?, ?, ?, ?, ?, ?, ?)",
+                COMMENTS, i -> new Object[]{BASE + i, BASE + i % USERS, BASE + i % POSTS, Comment.pathSegment(BASE + i),
+                        "comment " + i, Timestamp.valueOf(start.plusSeconds(i)), Timestamp.valueOf(start.plusSeconds(i))});
+        batch("insert into likes(id, user_id, post_id) values (?, ?, ?)", LIKES,
+                i -> new Object[]{BASE + i, BASE + i % USERS, BASE + (i / USERS) * 7 % POSTS});
+        batch("insert into follows(id, follower_id, followee_id) values (?, ?, ?)", FOLLOWS,
+                i -> new Object[]{BASE + i, BASE + i % USERS, BASE + (i / USERS + i % USERS + 1) % USERS});
+        jdbcTemplate.execute("analyze");
+    }
+
+    Stream<Arguments> repositoryQueries() {
+        long user = BASE + 7;
+        long post = BASE + 42;
+        LocalDateTime at = LocalDateTime.of(2025, 1, 2, 0, 0);
+        Pageable limit = PageRequest.of(0, 21);
+        Pageable page = PageRequest.of(2, 20);
+        List<Long> posts = List.of(post, post + 1);
+        String from = Comment.pathSegment(post);
+        String to = Comment.pathUpperBound(from);
+        return Stream.of(
+                call("PostRepository.findHeaders", () -> postRepository.findHeaders(limit)),
+                call("PostRepository.findHeadersAfter", () -> postRepository.findHeadersAfter(at, post, limit)),
+                call("PostRepository.findHeadersByUser", () -> postRepository.findHeadersByUser(user, limit)),
+                call("PostRepository.findHeadersByUserAfter",
+                        () -> postRepository.findHeadersByUserAfter(user, at, post, limit)),
+                call("PostRepository.findHeaderPage", () -> postRepository.findHeaderPage(page)),
+                call("PostRepository.findHeaderPageByUser", () -> postRepository.findHeaderPageByUser(user, page)),
+                call("PostRepository.findHeadersByIds", () -> postRepository.findHeadersByIds(posts)),
+                call("PostRepository.findWithUserById", () -> postRepository.findWithUserById(post)),
+                call("PostRepository.findContentById", () -> postRepository.findContentById(post)),
+                call("PostRepository.findLikesCountById", () -> postRepository.findLikesCountById(post)),
+                call("PostRepository.findLikesCountsByIds", () -> postRepository.findLikesCountsByIds(posts)),
+                call("PostRepository.findIdsByAuthorsBefore",
+                        () -> postRepository.findIdsByAuthorsBefore(List.of(user, user + 1), BASE + POSTS, limit)),
+                call("PostRepository.softDelete", () -> postRepository.softDelete(post, at)),
+                call("CommentRepository.findFeed", () -> commentRepository.findFeed(post, limit)),
+                call("CommentRepository.findFeedAfter", () -> commentRepository.findFeedAfter(post, at, BASE, limit)),
+                call("CommentRepository.findThread", () -> commentRepository.findThread(post, from, to, 3, PageRequest.of(0, 51))),
+                call("CommentRepository.findIdsInRange", () -> commentRepository.findIdsInRange(post, from, to)),
+                call("CommentRepository.findByPost_IdOrderByCreatedAtAsc",
+                        () -> commentRepository.findByPost_IdOrderByCreatedAtAsc(post, PageRequest.of(0, 20))),
+                call("CommentRepository.findByUser_Id", () -> commentRepository.findByUser_Id(user, PageRequest.of(0, 20))),
+                call("CommentRepository.countByPost_id", () -> commentRepository.countByPost_id(post)),
+                call("CommentRepository.countByPostIds", () -> commentRepository.countByPostIds(posts)),
+                call("CommentRepository.addReplies", () -> commentRepository.addReplies(BASE + 42, 1)),
+                call("LikeRepository.countByPost_Id", () -> likeRepository.countByPost_Id(post)),
+                call("LikeRepository.existsByPost_IdAndUser_Id", () -> likeRepository.existsByPost_IdAndUser_Id(post, user)),
+                call("LikeRepository.deleteByPost_IdAndUser_Id", () -> likeRepository.deleteByPost_IdAndUser_Id(post, user)),
+                call("LikeRepository.findLikedPostIds", () -> likeRepository.findLikedPostIds(user, posts)),
+                call("FollowRepository.existsByFollower_IdAndFollowee_Id",
+                        () -> followRepository.existsByFollower_IdAndFollowee_Id(user, user + 1)),
+                call("FollowRepository.deleteFollow", () -> followRepository.deleteFollow(user, user + 1)),
+                call("FollowRepository.countByFollowee_Id", () -> followRepository.countByFollowee_Id(user)),
+                call("FollowRepository.findFollowerIds", () -> followRepository.findFollowerIds(user)),
+                call("FollowRepository.findFolloweeIds", () -> followRepository.findFolloweeIds(user)),
+                call("FollowRepository.findFolloweesWithMoreFollowersThan",
+                        () -> followRepository.findFolloweesWithMoreFollowersThan(List.of(user, user + 1), 10)),
+                call("UserRepository.findByUsername", () -> userRepository.findByUsername("plan-user-7")),
+                call("UserRepository.findByEmail", () -> userRepository.findByEmail("plan-user-7@example.com")),
+                call("UserRepository.existsByEmail", () -> userRepository.existsByEmail("plan-user-7@example.com")),
+                call("UserRepository.existsByUsername", () -> userRepository.existsByUsername("plan-user-7")),
+                call("UserRepository.replacePassword", () -> userRepository.replacePassword(user, "x", "y")),
+                call("UserRepository.softDelete", () -> userRepository.softDelete(user, at))
+        );
+    }
+
+    Stream<Arguments> jdbcQueries() {
+        return Stream.of(
+                Arguments.of("PurgeReaper.NEXT_TASK", PurgeReaper.NEXT_TASK),
+                Arguments.of("PurgeReaper.DELETE_POST_LIKES", PurgeReaper.DELETE_POST_LIKES),
+                Arguments.of("PurgeReaper.DELETE_POST_COMMENTS", PurgeReaper.DELETE_POST_COMMENTS),
+                Arguments.of("PurgeReaper.SUBTREE_LEAVES_FIRST", PurgeReaper.SUBTREE_LEAVES_FIRST),
+                Arguments.of("PurgeReaper.DELETE_FOLLOWING", PurgeReaper.DELETE_FOLLOWING),
+                Arguments.of("PurgeReaper.DELETE_FOLLOWERS", PurgeReaper.DELETE_FOLLOWERS),
+                Arguments.of("PurgeReaper.USER_POSTS", PurgeReaper.USER_POSTS),
+                Arguments.of("PurgeReaper.USER_LIKES", PurgeReaper.USER_LIKES),
+                Arguments.of("PurgeReaper.USER_COMMENTS", PurgeReaper.USER_COMMENTS)
+        );
+    }
+
+    // изменяющие запросы тоже выполняются, поэтому транзакция откатывается
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    void repositoryQueryAvoidsTableScan(String query, Runnable invocation) {
+        CAPTURED.set(new ArrayList<>());
+        List<String> statements;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                invocation.run();
+                status.setRollbackOnly();
+            });
+            statements = List.copyOf(CAPTURED.get());
+        } finally {
+            CAPTURED.remove();
+        }
+        assertThat(statements).as(query).isNotEmpty();
+        statements.forEach(sql -> assertNoTableScan(query, sql));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("jdbcQueries")
+    void jdbcQueryAvoidsTableScan(String query, String sql) {
+        assertNoTableScan(query, sql);
+    }
+
+    // параметры в EXPLAIN остаются неподставленными: H2 строит план по форме запроса
+    private void assertNoTableScan(String query, String sql) {
+        String plan = String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class));
+        assertThat(plan).as(query + "\n" + plan).doesNotContainIgnoringCase("tableScan");
+    }
+
+    private static Arguments call(String query, Runnable invocation) {
+        return Arguments.of(query, invocation);
+    }
+
+    private void batch(String sql, int rows, IntFunction<Object[]> row) {
+        List<Object[]> args = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) args.add(row.apply(i));
+        jdbcTemplate.batchUpdate(sql, args);
+    }
+
+    public static class CapturingInspector extends SqlStatementCounter {
+
+        @Override
+        public String inspect(String sql) {
+            List<String> captured = CAPTURED.get();
+            if (captured != null) captured.add(sql);
+            return super.inspect(sql);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.kolidgio.myblog.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenizerTests {
+
+    @Test
+    void reducesRussianWordFormsToOneStem() {
+        assertThat(Tokenizer.tokenize("книга книги книгами")).containsOnly("книг");
+        assertThat(Tokenizer.tokenize("красивый красивые")).containsOnly("красив");
+        assertThat(Tokenizer.tokenize("читали читать")).containsOnly("чита");
+        assertThat(Tokenizer.tokenize("Программы программа")).containsOnly("программ");
+    }
+
+    @Test
+    void reducesEnglishWordFormsToOneStem() {
+        assertThat(Tokenizer.tokenize("posts posting posted")).containsOnly("post");
+        assertThat(Tokenizer.tokenize("running hopping")).containsExactly("run", "hop");
+        assertThat(Tokenizer.tokenize("ponies caresses")).containsExactly("poni", "caress");
+    }
+
+    @Test
+    void keepsStopWordFilteringAndLeavesMixedTokensAlone() {
+        assertThat(Tokenizer.tokenize("это и the Ёлка java21")).containsExactly("елк", "java21");
+    }
+
+    @Test
+    void queryMatchesOtherWordFormOfIndexedText() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(IndexedDoc.post(1, null, null, "Заметки о программировании", "Пишем программы на Java"));
+        index.put(IndexedDoc.post(2, null, null, "Рецепты", "Варим суп"));
+
+        List<SearchHit> hits = index.search(QueryTerm.parse("программа"), 10);
+
+        assertThat(hits).extracting(SearchHit::id).containsExactly(1L);
+    }
+
+    @Test
+    void versionRoundsToMicroseconds() {
+        LocalDateTime at = LocalDateTime.of(2026, 1, 1, 0, 0, 0, 123_456_789);
+
+        assertThat(IndexedDoc.versionOf(at)).isEqualTo(IndexedDoc.versionOf(at.withNano(123_457_000)));
+        assertThat(IndexedDoc.versionOf(null)).isZero();
+    }
+}
@@ -0,0 +1,53 @@
+package ru.kolidgio.myblog.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.kolidgio.myblog.dto.comment.CreateCommentDto;
+import ru.kolidgio.myblog.dto.post.CreatePostDto;
+import ru.kolidgio.myblog.dto.user.CreateUserDto;
+import ru.kolidgio.myblog.model.Comment;
+import ru.kolidgio.myblog.model.Post;
+import ru.kolidgio.myblog.model.User;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:commentthreads;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false")
+class CommentThreadTests {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void replyIsStoredUnderItsParentAndReadBackAsThread() {
+        User user = userService.create(new CreateUserDto("thread-user", "thread-user@example.com", "secret-password"));
+        Post post = postService.create(new CreatePostDto(user.getId(), "thread", null, "thread post"));
+        Comment root = commentService.create(post.getId(), new CreateCommentDto(user.getId(), "root", null));
+        Comment reply = commentService.create(post.getId(), new CreateCommentDto(user.getId(), "reply", root.getId()));
+
+        assertThat(jdbcTemplate.queryForMap("select parent_id, path, depth from comments where id = ?", reply.getId()))
+                .containsEntry("parent_id", root.getId())
+                .containsEntry("path", Comment.pathSegment(root.getId()) + Comment.pathSegment(reply.getId()))
+                .containsEntry("depth", 1);
+        assertThat(jdbcTemplate.queryForObject("select reply_count from comments where id = ?", Long.class, root.getId()))
+                .isEqualTo(1L);
+
+        List<Comment> thread = commentService.thread(post.getId(), null, null, 20, Comment.MAX_DEPTH).slice().getContent();
+        assertThat(thread).extracting(Comment::getId).containsExactly(root.getId(), reply.getId());
+        assertThat(thread).extracting(Comment::getDepth).containsExactly(0, 1);
+
+        List<Comment> subtree = commentService.thread(post.getId(), root.getId(), null, 20, 1).slice().getContent();
+        assertThat(subtree).extracting(Comment::getId).containsExactly(root.getId(), reply.getId());
+
+        commentService.delete(root.getId());
+        assertThat(commentService.thread(post.getId(), null, null, 20, Comment.MAX_DEPTH).slice().getContent()).isEmpty();
+    }
+}
@@ -0,0 +1,64 @@
+package ru.kolidgio.myblog.service.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactIdSetTests {
+
+    @Test
+    void addRemoveContainsAcrossContainers() {
+        CompactIdSet set = new CompactIdSet();
+        long[] ids = {0, 1, 65_535, 65_536, 65_537, 1L << 32, Long.MAX_VALUE};
+        for (long id : ids) {
+            assertThat(set.add(id)).isTrue();
+        }
+        assertThat(set.add(65_536)).isFalse();
+        assertThat(set.cardinality()).isEqualTo(ids.length);
+        assertThat(set.toArray()).containsExactly(ids);
+        assertThat(set.contains(65_538)).isFalse();
+        assertThat(set.contains(-1)).isFalse();
+
+        assertThat(set.remove(65_535)).isTrue();
+        assertThat(set.remove(65_535)).isFalse();
+        assertThat(set.contains(65_535)).isFalse();
+        assertThat(set.contains(65_536)).isTrue();
+        assertThat(set.cardinality()).isEqualTo(ids.length - 1);
+    }
+
+    @Test
+    void switchesBetweenArrayAndBitmapContainers() {
+        CompactIdSet set = new CompactIdSet();
+        LongStream.range(0, 5000).forEach(id -> set.add(id * 2));
+        assertThat(set.cardinality()).isEqualTo(5000);
+        assertThat(set.contains(9998)).isTrue();
+        assertThat(set.contains(9999)).isFalse();
+
+        LongStream.range(0, 1000).forEach(id -> set.remove(id * 2));
+        assertThat(set.cardinality()).isEqualTo(4000);
+        assertThat(set.contains(1998)).isFalse();
+        assertThat(set.contains(2000)).isTrue();
+        assertThat(set.toArray()).hasSize(4000).startsWith(2000, 2002);
+    }
+
+    @Test
+    void andIntersectsArrayAndBitmapContainers() {
+        CompactIdSet evens = new CompactIdSet();
+        CompactIdSet sparse = new CompactIdSet();
+        LongStream.range(0, 70_000).forEach(id -> evens.add(id * 2));
+        LongStream.of(4, 5, 65_536, 65_537, 139_998, 140_000, 1L << 40).forEach(sparse::add);
+
+        assertThat(evens.and(sparse).toArray()).containsExactly(4, 65_536, 139_998);
+        assertThat(sparse.and(evens).toArray()).containsExactly(4, 65_536, 139_998);
+        assertThat(evens.and(evens).cardinality()).isEqualTo(70_000);
+        assertThat(evens.and(new CompactIdSet()).cardinality()).isZero();
+    }
+
+    @Test
+    void rejectsNegativeIds() {
+        assertThatThrownBy(() -> new CompactIdSet().add(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,51 @@
+package ru.kolidgio.myblog.service.timeline;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimelineBufferTests {
+
+    @Test
+    void returnsNewestIdsBeforeCursor() {
+        TimelineBuffer buffer = new TimelineBuffer(10);
+        for (long id = 1; id <= 6; id++) {
+            buffer.push(id * 10);
+        }
+
+        assertThat(buffer.before(Long.MAX_VALUE, 3)).containsExactly(60, 50, 40);
+        assertThat(buffer.before(40, 10)).containsExactly(30, 20, 10);
+        assertThat(buffer.before(35, 2)).containsExactly(30, 20);
+        assertThat(buffer.before(10, 5)).isEmpty();
+    }
+
+    @Test
+    void evictsOldestWhenFullAndWrapsAround() {
+        TimelineBuffer buffer = new TimelineBuffer(4);
+        for (long id = 1; id <= 7; id++) {
+            buffer.push(id);
+        }
+
+        assertThat(buffer.size()).isEqualTo(4);
+        assertThat(buffer.before(Long.MAX_VALUE, 10)).containsExactly(7, 6, 5, 4);
+        assertThat(buffer.before(6, 10)).containsExactly(5, 4);
+    }
+
+    @Test
+    void keepsOrderForLateAndDuplicatePushes() {
+        TimelineBuffer buffer = new TimelineBuffer(4);
+        buffer.push(10);
+        buffer.push(30);
+        buffer.push(20);
+        buffer.push(30);
+        buffer.push(40);
+        buffer.push(50);
+        buffer.push(5);
+
+        assertThat(buffer.size()).isEqualTo(4);
+        assertThat(buffer.before(Long.MAX_VALUE, 10)).containsExactly(50, 40, 30, 20);
+
+        buffer.push(25);
+        assertThat(buffer.before(Long.MAX_VALUE, 10)).containsExactly(50, 40, 30, 25);
+    }
+}